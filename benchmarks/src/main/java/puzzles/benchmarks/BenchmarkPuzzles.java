@@ -0,0 +1,96 @@
+package puzzles.benchmarks;
+
+import puzzles.common.solver.ClockConfig;
+import puzzles.common.solver.Config;
+import puzzles.common.solver.WaterConfig;
+import puzzles.hoppers.model.HoppersConfig;
+
+/**
+ * The puzzle instances the benchmarks run on, kept in one place so every benchmark measures the same inputs from
+ * release to release. Hoppers boards are written the way HoppersConfig reads them: rows, columns, then every
+ * square of the board row by row.
+ *
+ * @author Jose Estevez
+ */
+final class BenchmarkPuzzles {
+    /** 5x5 board solved in 9 jumps */
+    static final String HOPPERS_5X5_9 = "5/5/G*G*.*.*G*G*G*.*G*G*G*G*R";
+    /** 5x5 board solved in 11 jumps */
+    static final String HOPPERS_5X5_11 = "5/5/G*G*G*G*G*G*G*G*G*G*.*R*G";
+    /** 7x7 board solved in 14 jumps, with a few hundred thousand configs */
+    static final String HOPPERS_7X7_14 = "7/7/G*G*.*G*.*G*G*.*R*G*.*G*.*G*G*.*G*.*G*.*G*G*.*G*.";
+
+    private BenchmarkPuzzles() {
+    }
+
+    /**
+     * Creates the starting config of a named Hoppers board
+     *
+     * @param name 5x5-9, 5x5-11 or 7x7-14
+     * @return the config
+     */
+    static HoppersConfig hoppers(String name) {
+        switch (name) {
+            case "5x5-9":
+                return new HoppersConfig(HOPPERS_5X5_9);
+            case "5x5-11":
+                return new HoppersConfig(HOPPERS_5X5_11);
+            case "7x7-14":
+                return new HoppersConfig(HOPPERS_7X7_14);
+            default:
+                throw new IllegalArgumentException("unknown board " + name);
+        }
+    }
+
+    /**
+     * Creates the starting config of a Water instance with the given number of buckets
+     *
+     * @param buckets 2 to 6
+     * @return the config
+     */
+    static WaterConfig water(int buckets) {
+        switch (buckets) {
+            case 2:
+                return new WaterConfig(new String[] {"1", "101", "97"});
+            case 3:
+                return new WaterConfig(new String[] {"19", "33", "21", "17"});
+            case 4:
+                return new WaterConfig(new String[] {"22", "31", "23", "17", "11"});
+            case 5:
+                return new WaterConfig(new String[] {"20", "23", "19", "13", "11", "7"});
+            case 6:
+                return new WaterConfig(new String[] {"14", "17", "13", "11", "9", "7", "5"});
+            default:
+                throw new IllegalArgumentException("no instance with " + buckets + " buckets");
+        }
+    }
+
+    /**
+     * Creates the starting config of a Clock instance that has to go halfway around the clock
+     *
+     * @param hours hours on the clock
+     * @return the config
+     */
+    static ClockConfig clock(int hours) {
+        return new ClockConfig(hours, 1, hours / 2 + 1, 1);
+    }
+
+    /**
+     * Walks a few moves into the puzzle, always taking the last neighbor, so benchmarks of a single config don't
+     * just measure the starting config, which is often unusually empty
+     *
+     * @param config starting config
+     * @param moves number of moves to make
+     * @return the config reached
+     */
+    static Config advance(Config config, int moves) {
+        for (int i = 0; i < moves; i++) {
+            var neighbors = config.getNeighbors();
+            if (neighbors.isEmpty()) {
+                break;
+            }
+            config = neighbors.get(neighbors.size() - 1);
+        }
+        return config;
+    }
+}
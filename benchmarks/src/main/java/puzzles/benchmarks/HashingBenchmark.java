@@ -0,0 +1,76 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hashCode() and equals() of each puzzle's config, which the solver's predecessor map calls for every
+ * neighbor it sees. equals() compares two separately built but equal configs, the case a map hit has to confirm.
+ *
+ * @author Jose Estevez
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashingBenchmark {
+    private Config hoppers;
+    private Config hoppersCopy;
+    private Config water;
+    private Config waterCopy;
+    private Config clock;
+    private Config clockCopy;
+
+    @Setup
+    public void setup() {
+        hoppers = BenchmarkPuzzles.advance(BenchmarkPuzzles.hoppers("7x7-14"), 3);
+        hoppersCopy = BenchmarkPuzzles.advance(BenchmarkPuzzles.hoppers("7x7-14"), 3);
+        water = BenchmarkPuzzles.advance(BenchmarkPuzzles.water(4), 3);
+        waterCopy = BenchmarkPuzzles.advance(BenchmarkPuzzles.water(4), 3);
+        clock = BenchmarkPuzzles.advance(BenchmarkPuzzles.clock(10000), 3);
+        clockCopy = BenchmarkPuzzles.advance(BenchmarkPuzzles.clock(10000), 3);
+    }
+
+    @Benchmark
+    public int hoppersHashCode() {
+        return hoppers.hashCode();
+    }
+
+    @Benchmark
+    public boolean hoppersEquals() {
+        return hoppers.equals(hoppersCopy);
+    }
+
+    @Benchmark
+    public int waterHashCode() {
+        return water.hashCode();
+    }
+
+    @Benchmark
+    public boolean waterEquals() {
+        return water.equals(waterCopy);
+    }
+
+    @Benchmark
+    public int clockHashCode() {
+        return clock.hashCode();
+    }
+
+    @Benchmark
+    public boolean clockEquals() {
+        return clock.equals(clockCopy);
+    }
+}
@@ -0,0 +1,72 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import puzzles.common.solver.Config;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures expanding a single config of each puzzle, both through getNeighbors() and through forEachNeighbor(),
+ * without any of the solver's queue or map work around it.
+ *
+ * @author Jose Estevez
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NeighborsBenchmark {
+    private Config hoppers;
+    private Config water;
+    private Config clock;
+
+    @Setup
+    public void setup() {
+        hoppers = BenchmarkPuzzles.advance(BenchmarkPuzzles.hoppers("7x7-14"), 3);
+        water = BenchmarkPuzzles.advance(BenchmarkPuzzles.water(4), 3);
+        clock = BenchmarkPuzzles.advance(BenchmarkPuzzles.clock(10000), 3);
+    }
+
+    @Benchmark
+    public ArrayList<Config> hoppersGetNeighbors() {
+        return hoppers.getNeighbors();
+    }
+
+    @Benchmark
+    public void hoppersForEachNeighbor(Blackhole blackhole) {
+        hoppers.forEachNeighbor(blackhole::consume);
+    }
+
+    @Benchmark
+    public ArrayList<Config> waterGetNeighbors() {
+        return water.getNeighbors();
+    }
+
+    @Benchmark
+    public void waterForEachNeighbor(Blackhole blackhole) {
+        water.forEachNeighbor(blackhole::consume);
+    }
+
+    @Benchmark
+    public ArrayList<Config> clockGetNeighbors() {
+        return clock.getNeighbors();
+    }
+
+    @Benchmark
+    public void clockForEachNeighbor(Blackhole blackhole) {
+        clock.forEachNeighbor(blackhole::consume);
+    }
+}
@@ -0,0 +1,91 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Config;
+import puzzles.common.solver.Solver;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures full solves with Solver, from a fresh solver every time, for representative Hoppers boards, Water
+ * instances with 2 to 6 buckets and clocks with many hours.
+ *
+ * @author Jose Estevez
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+    /**
+     * Holds the starting config of one Hoppers board
+     */
+    @State(Scope.Benchmark)
+    public static class HoppersState {
+        @Param({"5x5-9", "5x5-11", "7x7-14"})
+        public String board;
+        Config config;
+
+        @Setup
+        public void setup() {
+            config = BenchmarkPuzzles.hoppers(board);
+        }
+    }
+
+    /**
+     * Holds the starting config of one Water instance
+     */
+    @State(Scope.Benchmark)
+    public static class WaterState {
+        @Param({"2", "3", "4", "5", "6"})
+        public int buckets;
+        Config config;
+
+        @Setup
+        public void setup() {
+            config = BenchmarkPuzzles.water(buckets);
+        }
+    }
+
+    /**
+     * Holds the starting config of one clock
+     */
+    @State(Scope.Benchmark)
+    public static class ClockState {
+        @Param({"1000", "10000", "100000"})
+        public int hours;
+        Config config;
+
+        @Setup
+        public void setup() {
+            config = BenchmarkPuzzles.clock(hours);
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Config> hoppers(HoppersState state) {
+        return new Solver(state.config).solve();
+    }
+
+    @Benchmark
+    public ArrayList<Config> water(WaterState state) {
+        return new Solver(state.config).solve();
+    }
+
+    @Benchmark
+    public ArrayList<Config> clock(ClockState state) {
+        return new Solver(state.config).solve();
+    }
+}
@@ -0,0 +1,92 @@
+package puzzles.benchmarks;
+
+import puzzles.common.solver.Config;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.WaterConfig;
+
+import java.util.ArrayList;
+
+/**
+ * Checks that the bidirectional search Solver runs for Water keeps fewer configs than a plain forward BFS of the
+ * same puzzle, and finds a path just as short. Each instance is solved once as it is, and once wrapped so Solver
+ * can't tell it is a WaterConfig and falls back to the forward BFS. Prints both counts and fails if the
+ * bidirectional search didn't save anything. The instances have three buckets, since with two the configs form a
+ * ring the backward half can't cut short, and Water answers those without a search anyway.
+ *
+ * @author Jose Estevez
+ */
+public class WaterSearchCheck {
+    /** goal and capacities of each instance, the second having no solution */
+    private static final String[][] PUZZLES = {
+            {"3", "100", "101", "102"},
+            {"11", "30", "45", "70"},
+            {"7", "40", "41", "43"},
+            {"17", "20", "35", "48"}
+    };
+
+    public static void main(String[] args) {
+        for (String[] puzzle: PUZZLES) {
+            Solver bidirectional = new Solver(new WaterConfig(puzzle));
+            ArrayList<Config> path = bidirectional.solve();
+            Solver forward = new Solver(new Forward(new WaterConfig(puzzle)));
+            ArrayList<Config> forwardPath = forward.solve();
+            System.out.println(String.join(" ", puzzle) + ": unique configs " + bidirectional.getUniqueConfigs()
+                    + " bidirectional, " + forward.getUniqueConfigs() + " forward");
+            int moves = path == null ? -1 : path.size();
+            int forwardMoves = forwardPath == null ? -1 : forwardPath.size();
+            if (moves != forwardMoves) {
+                throw new IllegalStateException(String.join(" ", puzzle) + ": path of " + moves
+                        + " configs, forward BFS found " + forwardMoves);
+            }
+            if (bidirectional.getUniqueConfigs() >= forward.getUniqueConfigs()) {
+                throw new IllegalStateException(String.join(" ", puzzle)
+                        + ": bidirectional search kept no fewer configs than forward BFS");
+            }
+        }
+    }
+
+    /**
+     * Wraps a config so it is only a Config, which makes Solver run a forward BFS on it
+     */
+    private static class Forward implements Config {
+        private Config config;
+
+        /**
+         * Constructs the wrapper
+         *
+         * @param config the config wrapped
+         */
+        Forward(Config config) {
+            this.config = config;
+        }
+
+        @Override
+        public ArrayList<Config> getNeighbors() {
+            ArrayList<Config> neighbors = new ArrayList<>();
+            for (Config neighbor: config.getNeighbors()) {
+                neighbors.add(new Forward(neighbor));
+            }
+            return neighbors;
+        }
+
+        @Override
+        public boolean isSolution() {
+            return config.isSolution();
+        }
+
+        @Override
+        public Object necessary() {
+            return config.necessary();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Forward && config.equals(((Forward) other).config);
+        }
+
+        @Override
+        public int hashCode() {
+            return config.hashCode();
+        }
+    }
+}
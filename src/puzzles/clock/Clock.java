@@ -1,17 +1,13 @@
 package puzzles.clock;
 
-import puzzles.common.solver.ClockConfig;
-import puzzles.common.solver.Config;
-import puzzles.common.solver.ClockConfig;
-import puzzles.common.solver.Config;
-import puzzles.common.solver.Solver;
-
-import java.util.ArrayList;
+import puzzles.common.solver.ClockSolver;
+import puzzles.common.solver.PathWriter;
 
 /**
- * This class represents the Clock puzzle. It creates a ClockConfig and a solver, and passes the config to
- * the solver to try and find a path. It prints out the results of the attempted search regardless of the
- * outcome.
+ * This class represents the Clock puzzle. It creates a ClockSolver, which works out the shortest path straight
+ * from the hours, start and end, and prints out each position of the hour hand along it, or that there is no
+ * solution. No search is run and no configs are created, so unlike the other puzzles it has no config counts to
+ * print.
  *
  * @author Jose Estevez
  */
@@ -22,21 +18,12 @@ public class Clock {
         }
         else {
             System.out.println("Hours: " + args[0] + ", Start: " + args[1] + " End: " + args[2]);
-            ClockConfig clock = new ClockConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[1]));
-            Solver solver = new Solver(clock);
-            ArrayList<Config> path = solver.solve();
-            System.out.println("Total configs: " + solver.getTotalConfigs());
-            System.out.println("Unique configs: " + solver.getUniqueConfigs());
-            if (path == null) {
+            ClockSolver solver = new ClockSolver(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            if (!solver.hasSolution()) {
                 System.out.println("No solution.");
             }
             else {
-                int step = 0;
-                for (Config config : path) {
-                    ClockConfig clockConfig = (ClockConfig) config;
-                    System.out.println("Step " + step + ": " + clockConfig.necessary());
-                    step++;
-                }
+                PathWriter.print(solver);
             }
         }
     }
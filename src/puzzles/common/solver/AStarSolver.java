@@ -0,0 +1,149 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * Uses A* to solve different types of puzzles. Like Solver it keeps a predecessor map, but instead of a queue it
+ * expands configs from a heap in order of moves made plus the estimate of the moves left, so far fewer configs
+ * are visited when the estimate is good. Configs that aren't a HeuristicConfig are estimated to be 0 moves from the
+ * goal, which makes this a uniform-cost search.
+ *
+ * @author Jose Estevez
+ */
+public class AStarSolver {
+    private PriorityQueue<Node> heap;
+    private HashMap<Config, Config> predecessors;
+    private HashMap<Config, Integer> moves;
+    private Config config;
+    private int totalConfigs;
+
+    /**
+     * Constructs the AStarSolver, setting up the heap, predecessor map and map of moves made.
+     *
+     * @param config the config used to solve the puzzle
+     */
+    public AStarSolver(Config config) {
+        this.config = config;
+        totalConfigs = 1;
+        heap = new PriorityQueue<>();
+        predecessors = new HashMap<>();
+        moves = new HashMap<>();
+        predecessors.put(config, null);
+        moves.put(config, 0);
+        int estimate = estimate(config);
+        if (estimate != HeuristicConfig.UNREACHABLE) {
+            heap.add(new Node(config, 0, estimate));
+        }
+    }
+
+    /**
+     * The A* algorithm. Takes the config with the lowest moves made plus estimate off the heap, returning the path
+     * if it is the solution. Otherwise, each neighbor reached in fewer moves than before is recorded in the maps
+     * and added to the heap. Entries left behind on the heap by a shorter route are skipped.
+     *
+     * @return the path if one is found, null otherwise
+     */
+    public ArrayList<Config> solve() {
+        while (!heap.isEmpty()) {
+            Node node = heap.remove();
+            if (node.moves > moves.get(node.config)) {
+                continue;
+            }
+            if (node.config.isSolution()) {
+                ArrayList<Config> path = new ArrayList<>();
+                Config step = node.config;
+                while (step != null) {
+                    path.add(step);
+                    step = predecessors.get(step);
+                }
+                Collections.reverse(path);
+                return path;
+            }
+            int neighborMoves = node.moves + 1;
+            for (Config neighbor: node.config.getNeighbors()) {
+                totalConfigs++;
+                Integer known = moves.get(neighbor);
+                if (known == null || neighborMoves < known) {
+                    int estimate = estimate(neighbor);
+                    moves.put(neighbor, neighborMoves);
+                    predecessors.put(neighbor, node.config);
+                    if (estimate != HeuristicConfig.UNREACHABLE) {
+                        heap.add(new Node(neighbor, neighborMoves, neighborMoves + estimate));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Estimates the moves left from a config, or 0 if the config can't estimate it
+     *
+     * @param current the config
+     * @return lower bound on the moves left, or UNREACHABLE
+     */
+    private static int estimate(Config current) {
+        if (current instanceof HeuristicConfig) {
+            return ((HeuristicConfig) current).estimate();
+        }
+        return 0;
+    }
+
+    /**
+     * Accesses the total amount of configs created by the solver
+     *
+     * @return total configs
+     */
+    public int getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Accesses the amount of unique configs created by the solver
+     *
+     * @return unique configs
+     */
+    public int getUniqueConfigs() {
+        return predecessors.size();
+    }
+
+    /**
+     * An entry on the heap: a config, the moves made to reach it, and those moves plus its estimate. Entries with
+     * the same total are ordered with the most moves made first, since they are closest to the goal.
+     */
+    private static class Node implements Comparable<Node> {
+        private Config config;
+        private int moves;
+        private int total;
+
+        /**
+         * Constructs a heap entry
+         *
+         * @param config the config
+         * @param moves moves made to reach it
+         * @param total moves made plus estimate
+         */
+        Node(Config config, int moves, int total) {
+            this.config = config;
+            this.moves = moves;
+            this.total = total;
+        }
+
+        /**
+         * Orders entries by total, then by most moves made
+         *
+         * @param other the other entry
+         * @return negative, zero or positive as this entry comes before, with or after the other
+         */
+        @Override
+        public int compareTo(Node other) {
+            if (total != other.total) {
+                return Integer.compare(total, other.total);
+            }
+            return Integer.compare(other.moves, moves);
+        }
+    }
+}
@@ -1,27 +1,28 @@
 package puzzles.common.solver;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.Collection;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * This class represents a single ClockConfig. It implements the Config interface and implements all required
- * methods. It holds the hours on the clock, the start and end time, the current location of the hour hand,
- * and the list of each number on the clock and its neighbors. It is used for the Clock puzzle.
+ * methods. It holds the hours on the clock, the start and end time and the current location of the hour hand.
+ * The neighbors of a position are worked out from the number of hours, so creating a config takes the same time
+ * however large the clock is. It is used for the Clock puzzle. Since the hand can turn either way, it is also a
+ * ReversibleConfig with the single goal of the hand pointing at end. Its key is the position of the hour hand,
+ * and its estimate is how far the hand is from end going the shorter way.
  *
  * @author Jose Estevez
  */
-public class ClockConfig implements Config {
+public class ClockConfig implements ReversibleConfig, KeyedConfig, HeuristicConfig {
     private int hours;
     private int start;
     private int end;
     private int current;
-    private LinkedHashMap<Integer, ArrayList<Integer>> adjList;
 
     /**
-     * Constructs a ClockConfig, setting up the correct hours, start, end, and hour hand position, and creates
-     * the adjList.
+     * Constructs a ClockConfig, setting up the correct hours, start, end, and hour hand position.
      *
      * @param hours hours on the clock
      * @param start where the hour hand starts
@@ -33,22 +34,24 @@ public class ClockConfig implements Config {
         this.start = start;
         this.end = end;
         this.current = current;
-        adjList = new LinkedHashMap<>();
-        for (int i = 1; i <= hours; i++) {
-            adjList.put(i, new ArrayList<>());
-            if (i == 1) {
-                adjList.get(i).add(hours);
-                adjList.get(i).add(i+1);
-                continue;
-            }
-            if (i == hours) {
-                adjList.get(i).add(i-1);
-                adjList.get(i).add(1);
-                continue;
-            }
-            adjList.get(i).add(i-1);
-            adjList.get(i).add(i+1);
-        }
+    }
+
+    /**
+     * Returns the position one hour back from the hour hand, going from 1 round to hours
+     *
+     * @return position
+     */
+    private int less() {
+        return current == 1 ? hours : current - 1;
+    }
+
+    /**
+     * Returns the position one hour on from the hour hand, going from hours round to 1
+     *
+     * @return position
+     */
+    private int more() {
+        return current == hours ? 1 : current + 1;
     }
 
     /**
@@ -60,13 +63,91 @@ public class ClockConfig implements Config {
     @Override
     public ArrayList<Config> getNeighbors() {
         ArrayList<Config> neighbors = new ArrayList<>();
-        ClockConfig less = new ClockConfig(hours, start, end, adjList.get(current).get(0));
-        ClockConfig more = new ClockConfig(hours, start, end, adjList.get(current).get(1));
+        ClockConfig less = new ClockConfig(hours, start, end, less());
+        ClockConfig more = new ClockConfig(hours, start, end, more());
         neighbors.add(less);
         neighbors.add(more);
         return neighbors;
     }
 
+    /**
+     * Hands the config with the hour hand one hour backward, then the one with it one hour forward, to the
+     * consumer.
+     *
+     * @param consumer consumer each neighbor is handed to
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Config> consumer) {
+        consumer.accept(new ClockConfig(hours, start, end, less()));
+        consumer.accept(new ClockConfig(hours, start, end, more()));
+    }
+
+    /**
+     * Returns the only goal config, the one with the hour hand on end.
+     *
+     * @return goal configs
+     */
+    @Override
+    public Collection<Config> getGoals() {
+        ArrayList<Config> goals = new ArrayList<>();
+        goals.add(new ClockConfig(hours, start, end, end));
+        return goals;
+    }
+
+    /**
+     * Turning the hand is undone by turning it the other way, so the predecessors of a config are its
+     * neighbors.
+     *
+     * @return predecessor configs
+     */
+    @Override
+    public ArrayList<Config> getPredecessors() {
+        return getNeighbors();
+    }
+
+    /**
+     * Every clock config fits in a long
+     *
+     * @return true
+     */
+    @Override
+    public boolean hasKey() {
+        return true;
+    }
+
+    /**
+     * Returns the position of the hour hand as the key
+     *
+     * @return key
+     */
+    @Override
+    public long getKey() {
+        return current;
+    }
+
+    /**
+     * Creates the config of this clock with the hour hand at the position given by the key
+     *
+     * @param key position of the hour hand
+     * @return the config
+     */
+    @Override
+    public Config fromKey(long key) {
+        return new ClockConfig(hours, start, end, (int) key);
+    }
+
+    /**
+     * Returns the number of hours between the hour hand and end, going around the clock whichever way is shorter,
+     * which is exactly the number of moves left
+     *
+     * @return moves left
+     */
+    @Override
+    public int estimate() {
+        int distance = Math.abs(current - end);
+        return Math.min(distance, hours - distance);
+    }
+
     /**
      * Checks whether the current configuration is the same as another configuration
      *
@@ -75,8 +156,9 @@ public class ClockConfig implements Config {
      */
     @Override
     public boolean equals(Object other) {
-        if (current == ((ClockConfig)other).current) {
-            return true;
+        if (other instanceof ClockConfig) {
+            ClockConfig clock = (ClockConfig) other;
+            return current == clock.current && hours == clock.hours && end == clock.end;
         }
         return false;
     }
@@ -88,7 +170,7 @@ public class ClockConfig implements Config {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(hours, start, end, current, adjList);
+        return Objects.hash(hours, end, current);
     }
 
     /**
@@ -0,0 +1,125 @@
+package puzzles.common.solver;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Solves the Clock puzzle directly, without a search. The hour hand can only move one hour either way, so the
+ * shortest path turns it the shorter way round from start to end, and the path is known as soon as the direction
+ * is. The positions along the path are worked out one at a time as they are iterated over, so even a clock with a
+ * huge number of hours is solved in constant time and memory. When both ways round are the same length the hand
+ * turns backward, the first direction ClockConfig tries.
+ *
+ * @author Jose Estevez
+ */
+public class ClockSolver implements Iterable<Integer> {
+    private int hours;
+    private int start;
+    private int end;
+    private int direction;
+    private int distance;
+
+    /**
+     * Constructs the ClockSolver, working out the direction and length of the shortest path.
+     *
+     * @param hours hours on the clock
+     * @param start where the hour hand starts
+     * @param end where the hour hand is supposed to end up
+     */
+    public ClockSolver(int hours, int start, int end) {
+        this.hours = hours;
+        this.start = start;
+        this.end = end;
+        if (start < 1 || start > hours || end < 1 || end > hours) {
+            distance = -1;
+            return;
+        }
+        int forward = Math.floorMod(end - start, hours);
+        int backward = hours - forward;
+        if (forward == 0) {
+            distance = 0;
+            direction = 0;
+        }
+        else if (backward <= forward) {
+            distance = backward;
+            direction = -1;
+        }
+        else {
+            distance = forward;
+            direction = 1;
+        }
+    }
+
+    /**
+     * Checks whether the hand can get from start to end, which it can whenever both are on the clock
+     *
+     * @return true if there is a solution, else false
+     */
+    public boolean hasSolution() {
+        return distance >= 0;
+    }
+
+    /**
+     * Accesses the number of moves in the shortest path
+     *
+     * @return moves, or -1 if there is no solution
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Accesses the direction the hand turns in
+     *
+     * @return 1 for forward, -1 for backward, 0 if the hand starts on end
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the position of the hand after a number of moves along the shortest path
+     *
+     * @param step number of moves
+     * @return position of the hand
+     */
+    public int getPosition(int step) {
+        return Math.floorMod(start - 1 + (long) direction * step, hours) + 1;
+    }
+
+    /**
+     * Iterates over the positions of the hand along the shortest path, from start to end, working each one out
+     * when it is asked for. There are none if there is no solution.
+     *
+     * @return iterator over the positions
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int step = 0;
+
+            /**
+             * Checks whether there is another position on the path
+             *
+             * @return true if there is, else false
+             */
+            @Override
+            public boolean hasNext() {
+                return step <= distance;
+            }
+
+            /**
+             * Returns the next position on the path
+             *
+             * @return position of the hand
+             */
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getPosition(step++);
+            }
+        };
+    }
+}
@@ -1,7 +1,9 @@
 package puzzles.common.solver;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.function.Consumer;
 
 /**
  * An interface which represents configurations used by Solver.
@@ -18,6 +20,19 @@ public interface Config {
      */
     public ArrayList<Config> getNeighbors();
 
+    /**
+     * Hands each successor of the current configuration to a consumer as it is created, which Solver prefers
+     * over getNeighbors() since no list has to be built. By default it just walks the list from getNeighbors(),
+     * so configs only need to override it when they can do better.
+     *
+     * @param consumer consumer each successor is handed to
+     */
+    public default void forEachNeighbor(Consumer<Config> consumer) {
+        for (Config neighbor: getNeighbors()) {
+            consumer.accept(neighbor);
+        }
+    }
+
     /**
      * Checks whether the current configuration is the goal configuration
      *
@@ -33,6 +48,18 @@ public interface Config {
      */
     public Object necessary();
 
+    /**
+     * Writes the same information as necessary() straight to an Appendable, such as the Writer the steps of a
+     * solution are printed to, so printing a long path doesn't build a String for every step. By default it just
+     * appends necessary(), so configs only need to override it when they can do better.
+     *
+     * @param out where the information is written
+     * @throws IOException if it can't be written
+     */
+    public default void render(Appendable out) throws IOException {
+        out.append(String.valueOf(necessary()));
+    }
+
     /**
      * Checks whether the current configuration is the same as another configuration
      *
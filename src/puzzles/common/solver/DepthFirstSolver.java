@@ -0,0 +1,235 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Uses a depth-first search to find any solution of a puzzle, not necessarily the shortest, for when all that
+ * matters is whether the puzzle can be solved. Instead of a map that grows with the search, the configs seen are
+ * kept in a transposition table of fixed size, given in megabytes. Each config has one slot, picked from its
+ * hash, and a new config simply replaces whatever was in its slot. A config that was pushed out may be searched
+ * again when it is reached another way, so some work can be repeated, but the search never holds more than the
+ * table and the configs along the current path. The neighbors of a config are tried in order of their estimate
+ * if they are HeuristicConfigs, ones estimated to be UNREACHABLE are skipped, and the search stops at the first
+ * solution it creates.
+ *
+ * If the config is a KeyedConfig that has keys, the table holds the keys, 8 bytes a slot. Otherwise, if it is a
+ * HashedConfig, the table holds the 64 bit hashes, also 8 bytes a slot, and a config whose hash is in its slot is
+ * taken to have been seen. Two configs sharing a hash could make the search miss a solution, though it is very
+ * unlikely, but any path it returns is always a real one. Configs with neither have to be kept themselves, and
+ * then the megabytes only set the number of slots, since the size of a config isn't known.
+ *
+ * @author Jose Estevez
+ */
+public class DepthFirstSolver {
+    /** key or hash of an empty slot, a config with this one is never put in the table so may be searched again */
+    private static final long EMPTY = Long.MIN_VALUE;
+    /** multiplier spreading hashes over the slots, 2^64 divided by the golden ratio */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    private Config config;
+    private boolean keyed;
+    private boolean hashed;
+    private long[] keys;
+    private Config[] configs;
+    private int shift;
+    private HashSet<Config> onPath;
+    private Config solution;
+    private int[] estimates;
+    private long totalConfigs;
+    private long uniqueConfigs;
+
+    /**
+     * Constructs the DepthFirstSolver, setting up a transposition table of the largest power of two number of
+     * slots that fits in the megabytes given.
+     *
+     * @param config the config used to solve the puzzle
+     * @param megabytes size of the transposition table, at least 1
+     */
+    public DepthFirstSolver(Config config, int megabytes) {
+        this.config = config;
+        keyed = config instanceof KeyedConfig && ((KeyedConfig) config).hasKey();
+        hashed = !keyed && config instanceof HashedConfig;
+        long slots = Long.highestOneBit(Math.max(megabytes, 1) * (1L << 20) / 8);
+        slots = Math.min(slots, 1 << 30);
+        shift = 64 - Long.numberOfTrailingZeros(slots);
+        if (keyed || hashed) {
+            keys = new long[(int) slots];
+        }
+        else {
+            configs = new Config[(int) slots];
+        }
+        estimates = new int[16];
+        totalConfigs = 1;
+        uniqueConfigs = 1;
+    }
+
+    /**
+     * Searches depth first from the starting config until a solution is created or every config that can be
+     * reached has been tried. Keeps its own stack of the neighbors still to try at each depth, so deep searches
+     * can't overflow the call stack.
+     *
+     * @return a path to a solution if one is found, null otherwise
+     */
+    public ArrayList<Config> solve() {
+        if (keys != null) {
+            Arrays.fill(keys, EMPTY);
+        }
+        else {
+            Arrays.fill(configs, null);
+        }
+        totalConfigs = 1;
+        uniqueConfigs = 0;
+        solution = null;
+        store(config);
+        ArrayList<Config> path = new ArrayList<>();
+        path.add(config);
+        if (config.isSolution()) {
+            return path;
+        }
+        if (estimate(config) == HeuristicConfig.UNREACHABLE) {
+            return null;
+        }
+        onPath = new HashSet<>();
+        onPath.add(config);
+        ArrayList<ArrayList<Config>> pending = new ArrayList<>();
+        pending.add(expand(config));
+        while (solution == null && !pending.isEmpty()) {
+            int top = pending.size() - 1;
+            ArrayList<Config> untried = pending.get(top);
+            if (untried.isEmpty()) {
+                pending.remove(top);
+                onPath.remove(path.remove(top));
+            }
+            else {
+                Config next = untried.remove(untried.size() - 1);
+                if (onPath.add(next)) {
+                    path.add(next);
+                    pending.add(expand(next));
+                }
+            }
+        }
+        onPath = null;
+        if (solution == null) {
+            return null;
+        }
+        path.add(solution);
+        return path;
+    }
+
+    /**
+     * Creates the neighbors of a config and keeps the ones worth trying: those that aren't on the current path,
+     * aren't in the table and aren't estimated to be UNREACHABLE. They are put in the table and sorted so that
+     * the one with the lowest estimate, and of those the one created first, is at the end of the list. If a
+     * neighbor is a solution it is kept as the solution instead and nothing else is done.
+     *
+     * @param current the config
+     * @return neighbors still to try, the next one at the end
+     */
+    private ArrayList<Config> expand(Config current) {
+        ArrayList<Config> untried = new ArrayList<>();
+        current.forEachNeighbor(neighbor -> {
+            totalConfigs++;
+            if (solution != null) {
+                return;
+            }
+            if (neighbor.isSolution()) {
+                solution = neighbor;
+                return;
+            }
+            int estimate = estimate(neighbor);
+            if (estimate == HeuristicConfig.UNREACHABLE || onPath.contains(neighbor) || !store(neighbor)) {
+                return;
+            }
+            if (untried.size() == estimates.length) {
+                estimates = Arrays.copyOf(estimates, estimates.length * 2);
+            }
+            int index = 0;
+            while (index < untried.size() && estimates[index] > estimate) {
+                index++;
+            }
+            untried.add(index, neighbor);
+            System.arraycopy(estimates, index, estimates, index + 1, untried.size() - 1 - index);
+            estimates[index] = estimate;
+        });
+        return untried;
+    }
+
+    /**
+     * Puts a config in its slot of the table, replacing whatever was there, unless it is already there. A
+     * SymmetricConfig is put in as its canonical form, so its mirror images count as already seen.
+     *
+     * @param current the config
+     * @return true if the config wasn't in the table, else false
+     */
+    private boolean store(Config current) {
+        if (keys != null) {
+            Config form = canonical(current);
+            long key = keyed ? ((KeyedConfig) form).getKey() : ((HashedConfig) form).getHash();
+            int slot = (int) ((key * SPREAD) >>> shift);
+            if (key != EMPTY) {
+                if (keys[slot] == key) {
+                    return false;
+                }
+                keys[slot] = key;
+            }
+        }
+        else {
+            Config form = canonical(current);
+            int slot = (int) ((form.hashCode() * SPREAD) >>> shift);
+            if (form.equals(configs[slot])) {
+                return false;
+            }
+            configs[slot] = form;
+        }
+        uniqueConfigs++;
+        return true;
+    }
+
+    /**
+     * Returns the canonical form of a config if it is a SymmetricConfig, otherwise the config itself
+     *
+     * @param current the config
+     * @return canonical form
+     */
+    private static Config canonical(Config current) {
+        if (current instanceof SymmetricConfig) {
+            return ((SymmetricConfig) current).canonical();
+        }
+        return current;
+    }
+
+    /**
+     * Estimates the moves left from a config, or 0 if the config can't estimate it
+     *
+     * @param current the config
+     * @return lower bound on the moves left, or UNREACHABLE
+     */
+    private static int estimate(Config current) {
+        if (current instanceof HeuristicConfig) {
+            return ((HeuristicConfig) current).estimate();
+        }
+        return 0;
+    }
+
+    /**
+     * Accesses the total amount of configs created by the solver
+     *
+     * @return total configs
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Accesses the amount of configs put in the transposition table. A config that was pushed out of the table
+     * and reached again is counted again, so on a table too small for the puzzle this can be more than the
+     * number of different configs.
+     *
+     * @return unique configs
+     */
+    public long getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+}
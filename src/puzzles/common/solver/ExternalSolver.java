@@ -0,0 +1,322 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * A disk-backed version of Solver for state spaces that don't fit in the heap. It runs the BFS over the keys of a
+ * KeyedConfig, one level at a time, keeping every level and the set of visited keys in files instead of memory.
+ * Neighbors are gathered into a fixed-size buffer that is sorted and spilled to a run file whenever it fills up.
+ * Duplicates are removed once the level is done, by merging the runs against the sorted visited file, which is
+ * known as delayed duplicate detection. The frontier is read back through memory-mapped segments.
+ *
+ * Levels only store keys, not predecessors, so the path is rebuilt by searching each earlier level for a config
+ * that has the next config of the path as a neighbor.
+ *
+ * @author Jose Estevez
+ */
+public class ExternalSolver {
+    /** number of keys gathered before a run is spilled when no buffer size is given, 32MB worth */
+    private static final int DEFAULT_BUFFER_KEYS = 1 << 22;
+
+    private KeyedConfig config;
+    private Path directory;
+    private long[] buffer;
+    private long totalConfigs;
+    private long uniqueConfigs;
+
+    /**
+     * Constructs the ExternalSolver with the default buffer size.
+     *
+     * @param config the config used to solve the puzzle, which must be a KeyedConfig that has keys
+     * @param directory directory the solver's files are created in
+     */
+    public ExternalSolver(Config config, Path directory) {
+        this(config, directory, DEFAULT_BUFFER_KEYS);
+    }
+
+    /**
+     * Constructs the ExternalSolver.
+     *
+     * @param config the config used to solve the puzzle, which must be a KeyedConfig that has keys
+     * @param directory directory the solver's files are created in
+     * @param bufferKeys number of keys gathered in memory before they are spilled to disk
+     */
+    public ExternalSolver(Config config, Path directory, int bufferKeys) {
+        if (!(config instanceof KeyedConfig) || !((KeyedConfig) config).hasKey()) {
+            throw new IllegalArgumentException("ExternalSolver needs a KeyedConfig that has keys");
+        }
+        this.config = (KeyedConfig) config;
+        this.directory = directory;
+        buffer = new long[bufferKeys];
+        totalConfigs = 1;
+        uniqueConfigs = 1;
+    }
+
+    /**
+     * Runs the disk-backed BFS in a new working directory, which is deleted again afterwards.
+     *
+     * @return the path if one is found, null otherwise
+     * @throws UncheckedIOException if the solver's files can't be written or read
+     */
+    public ArrayList<Config> solve() {
+        Path work = null;
+        try {
+            work = Files.createTempDirectory(directory, "bfs");
+            return search(work);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            if (work != null) {
+                delete(work);
+            }
+        }
+    }
+
+    /**
+     * The BFS algorithm. Reads the current level from its file, checking each config for the solution, and
+     * spills the keys of all their neighbors to sorted runs. The runs are then merged into the next level,
+     * leaving out keys already in the visited file, and the next level is merged into the visited file.
+     *
+     * @param work working directory
+     * @return the path if one is found, null otherwise
+     * @throws IOException if the solver's files can't be written or read
+     */
+    private ArrayList<Config> search(Path work) throws IOException {
+        ArrayList<Path> levels = new ArrayList<>();
+        Path level = work.resolve("level-0");
+        try (LongRunWriter writer = new LongRunWriter(level)) {
+            writer.write(config.getKey());
+        }
+        levels.add(level);
+        Path visited = level;
+        while (true) {
+            ArrayList<Path> runs = new ArrayList<>();
+            int filled = 0;
+            try (LongRunReader frontier = new LongRunReader(level)) {
+                while (frontier.hasNext()) {
+                    long key = frontier.next();
+                    Config current = config.fromKey(key);
+                    if (current.isSolution()) {
+                        return buildPath(key, levels);
+                    }
+                    for (Config neighbor: current.getNeighbors()) {
+                        totalConfigs++;
+                        if (filled == buffer.length) {
+                            runs.add(writeRun(work, runs.size(), filled));
+                            filled = 0;
+                        }
+                        buffer[filled++] = ((KeyedConfig) neighbor).getKey();
+                    }
+                }
+            }
+            if (filled > 0) {
+                runs.add(writeRun(work, runs.size(), filled));
+            }
+            Path next = work.resolve("level-" + levels.size());
+            long count = mergeRuns(runs, visited, next);
+            for (Path run: runs) {
+                Files.delete(run);
+            }
+            if (count == 0) {
+                return null;
+            }
+            uniqueConfigs += count;
+            levels.add(next);
+            Path merged = work.resolve("visited-" + levels.size());
+            mergeVisited(visited, next, merged);
+            if (!levels.contains(visited)) {
+                Files.delete(visited);
+            }
+            visited = merged;
+            level = next;
+        }
+    }
+
+    /**
+     * Sorts the filled part of the buffer, removes duplicates and writes what is left to a run file.
+     *
+     * @param work working directory
+     * @param index number of the run within the level
+     * @param filled number of keys in the buffer
+     * @return the run file
+     * @throws IOException if the run can't be written
+     */
+    private Path writeRun(Path work, int index, int filled) throws IOException {
+        Arrays.sort(buffer, 0, filled);
+        Path run = work.resolve("run-" + index);
+        try (LongRunWriter writer = new LongRunWriter(run)) {
+            for (int i = 0; i < filled; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1]) {
+                    writer.write(buffer[i]);
+                }
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges sorted runs into a single sorted file of the keys that appear in some run but not in the visited
+     * file.
+     *
+     * @param runs sorted run files
+     * @param visited sorted file of every key seen so far
+     * @param out file the new keys are written to
+     * @return number of new keys
+     * @throws IOException if a file can't be written or read
+     */
+    private long mergeRuns(ArrayList<Path> runs, Path visited, Path out) throws IOException {
+        PriorityQueue<LongRunReader> readers = new PriorityQueue<>(Comparator.comparingLong(LongRunReader::peek));
+        ArrayList<LongRunReader> opened = new ArrayList<>();
+        try (LongRunReader seen = new LongRunReader(visited); LongRunWriter writer = new LongRunWriter(out)) {
+            for (Path run: runs) {
+                LongRunReader reader = new LongRunReader(run);
+                opened.add(reader);
+                if (reader.hasNext()) {
+                    readers.add(reader);
+                }
+            }
+            boolean first = true;
+            long last = 0;
+            while (!readers.isEmpty()) {
+                LongRunReader reader = readers.remove();
+                long key = reader.next();
+                if (reader.hasNext()) {
+                    readers.add(reader);
+                }
+                if (!first && key == last) {
+                    continue;
+                }
+                first = false;
+                last = key;
+                while (seen.hasNext() && seen.peek() < key) {
+                    seen.next();
+                }
+                if (!seen.hasNext() || seen.peek() != key) {
+                    writer.write(key);
+                }
+            }
+            return writer.getCount();
+        }
+        finally {
+            for (LongRunReader reader: opened) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Merges two sorted files with no keys in common into one sorted file.
+     *
+     * @param visited sorted file of every key seen before this level
+     * @param level sorted file of the keys of this level
+     * @param out file the merged keys are written to
+     * @throws IOException if a file can't be written or read
+     */
+    private void mergeVisited(Path visited, Path level, Path out) throws IOException {
+        try (LongRunReader left = new LongRunReader(visited); LongRunReader right = new LongRunReader(level);
+             LongRunWriter writer = new LongRunWriter(out)) {
+            while (left.hasNext() || right.hasNext()) {
+                if (!right.hasNext() || (left.hasNext() && left.peek() < right.peek())) {
+                    writer.write(left.next());
+                }
+                else {
+                    writer.write(right.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the path to the solution by finding, in each earlier level, a config with the next config of the
+     * path as a neighbor.
+     *
+     * @param solution key of the solution, which is in the last level
+     * @param levels level files from the starting config onwards
+     * @return the path
+     * @throws IOException if a level can't be read
+     */
+    private ArrayList<Config> buildPath(long solution, ArrayList<Path> levels) throws IOException {
+        ArrayList<Config> path = new ArrayList<>();
+        if (levels.size() == 1) {
+            path.add(config);
+            return path;
+        }
+        path.add(config.fromKey(solution));
+        long target = solution;
+        for (int i = levels.size() - 2; i > 0; i--) {
+            target = findPredecessor(levels.get(i), target);
+            path.add(config.fromKey(target));
+        }
+        path.add(config);
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Scans a level for a config that has the config with the given key as a neighbor.
+     *
+     * @param level the level file
+     * @param target key of the neighbor
+     * @return key of the config found
+     * @throws IOException if the level can't be read
+     */
+    private long findPredecessor(Path level, long target) throws IOException {
+        try (LongRunReader reader = new LongRunReader(level)) {
+            while (reader.hasNext()) {
+                long key = reader.next();
+                for (Config neighbor: config.fromKey(key).getNeighbors()) {
+                    if (((KeyedConfig) neighbor).getKey() == target) {
+                        return key;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("no predecessor found in " + level);
+    }
+
+    /**
+     * Deletes the working directory and everything in it, ignoring files that can't be deleted.
+     *
+     * @param work working directory
+     */
+    private void delete(Path work) {
+        try (Stream<Path> files = Files.list(work)) {
+            for (Path file: (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(work);
+        }
+        catch (IOException e) {
+            // leftover files in the temporary directory don't affect the result
+        }
+    }
+
+    /**
+     * Accesses the total amount of configs created by the solver
+     *
+     * @return total configs
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Accesses the amount of unique configs created by the solver
+     *
+     * @return unique configs
+     */
+    public long getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+}
@@ -0,0 +1,19 @@
+package puzzles.common.solver;
+
+/**
+ * An optional extension of Config for puzzles that keep a 64 bit hash of each configuration. DepthFirstSolver
+ * keeps the hash in its transposition table for configurations that have no key, so the table takes the same
+ * memory however large the configurations are. Two different configurations can share a hash, so the solver
+ * can take a configuration it hasn't seen for one it has, but with 64 bits that is very unlikely.
+ *
+ * @author Jose Estevez
+ */
+public interface HashedConfig extends Config {
+    /**
+     * Returns a 64 bit hash of the current configuration. Equal configurations have the same hash, and the bits
+     * of the hash should be spread evenly, so the low bits alone make a good hash too.
+     *
+     * @return hash
+     */
+    public long getHash();
+}
@@ -0,0 +1,22 @@
+package puzzles.common.solver;
+
+/**
+ * An optional extension of Config for puzzles that can estimate how far a configuration is from the goal.
+ * IDAStarSolver and AStarSolver use the estimate to search toward the goal first, and to rule out configurations
+ * that can't be on a shortest path. The estimate must never be more than the real number of moves left, or the
+ * paths found may not be the shortest.
+ *
+ * @author Jose Estevez
+ */
+public interface HeuristicConfig extends Config {
+    /** estimate returned for a configuration from which the goal can't be reached at all */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Estimates the number of moves needed to get from the current configuration to the goal, without ever
+     * estimating more than are really needed
+     *
+     * @return lower bound on the moves left, or UNREACHABLE
+     */
+    public int estimate();
+}
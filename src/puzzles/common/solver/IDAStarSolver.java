@@ -0,0 +1,286 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * Uses iterative-deepening A* to solve different types of puzzles. Runs depth-first searches with a growing bound
+ * on the number of moves made plus the estimate of the moves left, so it finds a shortest path like Solver while
+ * only holding the configs on the current path in memory. Configs that aren't a HeuristicConfig are estimated to
+ * be 0 moves from the goal, which makes this a plain iterative-deepening search.
+ *
+ * A config reached by more than one path would be searched once for each of them, so each search keeps a
+ * transposition table like DepthFirstSolver's with the fewest moves each config was reached in. A config reached
+ * again in as many moves or more is skipped, since everything below it was already searched within the same
+ * bound. The table starts small and doubles whenever it is half full, up to the megabytes given. Each config has
+ * one slot and a new config replaces whatever was in it, so once the table is as large as it may be it only cuts
+ * down the repeated work, it doesn't always remove it. Configs that have keys or hashes are kept as those, so two
+ * configs sharing a 64 bit hash could make the search miss a shortest path, though it is very unlikely.
+ *
+ * The table matters most when the estimate barely grows with the moves made. For Hoppers every move takes one
+ * frog off the board and the estimate is the frogs left, so moves made plus estimate never change, the first
+ * bound already takes in every config, and without the table an unsolvable board was searched as a whole tree
+ * of paths. For Water the estimate is at most 2. In both cases IDA* is still no faster than Solver's BFS and is
+ * only worth using for the memory it saves.
+ *
+ * @author Jose Estevez
+ */
+public class IDAStarSolver {
+    /** key or hash of an empty slot, a config with this one is never put in the table */
+    private static final long EMPTY = Long.MIN_VALUE;
+    /** multiplier spreading hashes over the slots, 2^64 divided by the golden ratio */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+    /** megabytes of transposition table used when none is given */
+    private static final int DEFAULT_MEGABYTES = 16;
+    /** slots the transposition table starts with */
+    private static final int FIRST_SLOTS = 1 << 10;
+
+    private Config config;
+    private long totalConfigs;
+    private int iterations;
+    private boolean keyed;
+    private boolean hashed;
+    private long[] keys;
+    private Config[] configs;
+    private int[] moves;
+    private int shift;
+    private int maxSlots;
+    private int used;
+
+    /**
+     * Constructs the IDAStarSolver with a transposition table of 16 megabytes.
+     *
+     * @param config the config used to solve the puzzle
+     */
+    public IDAStarSolver(Config config) {
+        this(config, DEFAULT_MEGABYTES);
+    }
+
+    /**
+     * Constructs the IDAStarSolver, with a transposition table that may grow to the largest power of two number
+     * of slots that fits in the megabytes given. A slot takes 12 bytes if the configs have keys or hashes, and
+     * otherwise the megabytes only set the number of slots, since the size of a config isn't known.
+     *
+     * @param config the config used to solve the puzzle
+     * @param megabytes size of the transposition table, at least 1
+     */
+    public IDAStarSolver(Config config, int megabytes) {
+        this.config = config;
+        totalConfigs = 1;
+        keyed = config instanceof KeyedConfig && ((KeyedConfig) config).hasKey();
+        hashed = !keyed && config instanceof HashedConfig;
+        long slots = Long.highestOneBit(Math.max(megabytes, 1) * (1L << 20) / 12);
+        maxSlots = (int) Math.min(slots, 1 << 30);
+        allocate(Math.min(FIRST_SLOTS, maxSlots));
+    }
+
+    /**
+     * Sets up an empty transposition table
+     *
+     * @param slots number of slots, a power of two
+     */
+    private void allocate(int slots) {
+        shift = 64 - Integer.numberOfTrailingZeros(slots);
+        if (keyed || hashed) {
+            keys = new long[slots];
+            Arrays.fill(keys, EMPTY);
+        }
+        else {
+            configs = new Config[slots];
+        }
+        moves = new int[slots];
+        used = 0;
+    }
+
+    /**
+     * Runs depth-first searches from the starting config, starting with the estimate of the starting config as the
+     * bound and raising it to the smallest value that went over it each time, until a solution is found or no
+     * config went over the bound.
+     *
+     * @return the path if one is found, null otherwise
+     */
+    public ArrayList<Config> solve() {
+        int bound = estimate(config);
+        ArrayList<Config> path = new ArrayList<>();
+        while (bound != HeuristicConfig.UNREACHABLE) {
+            iterations++;
+            bound = search(bound, path);
+            if (!path.isEmpty()) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One depth-first search, which skips any config whose moves made plus estimate go over the bound, any config
+     * the table says was reached in as few moves before, and never revisits a config already on the current path.
+     * Uses its own stack of neighbor iterators so deep searches can't overflow the call stack.
+     *
+     * @param bound most moves made plus estimate allowed
+     * @param solution list the path is added to if a solution is found
+     * @return the smallest value that went over the bound, or UNREACHABLE if none did
+     */
+    private int search(int bound, ArrayList<Config> solution) {
+        ArrayList<Config> path = new ArrayList<>();
+        ArrayList<Iterator<Config>> neighbors = new ArrayList<>();
+        HashSet<Config> onPath = new HashSet<>();
+        int next = HeuristicConfig.UNREACHABLE;
+        if (used > 0) {
+            if (keys != null) {
+                Arrays.fill(keys, EMPTY);
+            }
+            else {
+                Arrays.fill(configs, null);
+            }
+            used = 0;
+        }
+        path.add(config);
+        neighbors.add(null);
+        onPath.add(config);
+        while (!path.isEmpty()) {
+            int top = path.size() - 1;
+            Config current = path.get(top);
+            Iterator<Config> iterator = neighbors.get(top);
+            if (iterator == null) {
+                int estimate = estimate(current);
+                int total = estimate == HeuristicConfig.UNREACHABLE ? estimate : top + estimate;
+                if (total > bound) {
+                    next = Math.min(next, total);
+                    onPath.remove(path.remove(top));
+                    neighbors.remove(top);
+                    continue;
+                }
+                if (current.isSolution()) {
+                    solution.addAll(path);
+                    return bound;
+                }
+                if (!store(current, top)) {
+                    onPath.remove(path.remove(top));
+                    neighbors.remove(top);
+                    continue;
+                }
+                iterator = current.getNeighbors().iterator();
+                neighbors.set(top, iterator);
+            }
+            if (iterator.hasNext()) {
+                Config neighbor = iterator.next();
+                totalConfigs++;
+                if (onPath.add(neighbor)) {
+                    path.add(neighbor);
+                    neighbors.add(null);
+                }
+            }
+            else {
+                onPath.remove(path.remove(top));
+                neighbors.remove(top);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Puts a config in its slot of the table with the moves it was reached in, replacing whatever was there,
+     * unless it is already there with as few moves. A SymmetricConfig is put in as its canonical form, so its
+     * mirror images count as the same config. Doubles the table once it is half full, if it may grow.
+     *
+     * @param current the config
+     * @param made moves made to reach it
+     * @return true if the config still has to be searched, false if it was reached in as few moves before
+     */
+    private boolean store(Config current, int made) {
+        Config form = current instanceof SymmetricConfig ? ((SymmetricConfig) current).canonical() : current;
+        if (keys != null) {
+            long key = keyed ? ((KeyedConfig) form).getKey() : ((HashedConfig) form).getHash();
+            if (key == EMPTY) {
+                return true;
+            }
+            int slot = (int) ((key * SPREAD) >>> shift);
+            if (keys[slot] == key && moves[slot] <= made) {
+                return false;
+            }
+            if (keys[slot] == EMPTY) {
+                used++;
+            }
+            keys[slot] = key;
+            moves[slot] = made;
+        }
+        else {
+            int slot = (int) ((form.hashCode() * SPREAD) >>> shift);
+            if (form.equals(configs[slot]) && moves[slot] <= made) {
+                return false;
+            }
+            if (configs[slot] == null) {
+                used++;
+            }
+            configs[slot] = form;
+            moves[slot] = made;
+        }
+        if (used > moves.length / 2 && moves.length < maxSlots) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the number of slots of the table, moving every config in it to its slot in the new one
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Config[] oldConfigs = configs;
+        int[] oldMoves = moves;
+        allocate(oldMoves.length * 2);
+        for (int i = 0; i < oldMoves.length; i++) {
+            int slot;
+            if (oldKeys != null) {
+                if (oldKeys[i] == EMPTY) {
+                    continue;
+                }
+                slot = (int) ((oldKeys[i] * SPREAD) >>> shift);
+                keys[slot] = oldKeys[i];
+            }
+            else {
+                if (oldConfigs[i] == null) {
+                    continue;
+                }
+                slot = (int) ((oldConfigs[i].hashCode() * SPREAD) >>> shift);
+                configs[slot] = oldConfigs[i];
+            }
+            moves[slot] = oldMoves[i];
+            used++;
+        }
+    }
+
+    /**
+     * Estimates the moves left from a config, or 0 if the config can't estimate it
+     *
+     * @param current the config
+     * @return lower bound on the moves left, or UNREACHABLE
+     */
+    private static int estimate(Config current) {
+        if (current instanceof HeuristicConfig) {
+            return ((HeuristicConfig) current).estimate();
+        }
+        return 0;
+    }
+
+    /**
+     * Accesses the total amount of configs created by the solver, over all iterations
+     *
+     * @return total configs
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Accesses the number of depth-first searches run
+     *
+     * @return iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+}
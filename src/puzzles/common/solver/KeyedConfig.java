@@ -0,0 +1,34 @@
+package puzzles.common.solver;
+
+/**
+ * An optional extension of Config for puzzles whose configurations can be packed into a single long. Solver uses
+ * it to keep its queue and predecessor map as primitive longs instead of Config objects, decoding keys back into
+ * configs only when it needs to expand one or rebuild the path.
+ *
+ * @author Jose Estevez
+ */
+public interface KeyedConfig extends Config {
+    /**
+     * Checks whether every configuration of this puzzle fits in a long, since some puzzles only do for small
+     * enough sizes
+     *
+     * @return true if getKey() and fromKey() can be used, else false
+     */
+    public boolean hasKey();
+
+    /**
+     * Packs the current configuration into a long. Two configurations of the same puzzle have the same key
+     * exactly when they are equal.
+     *
+     * @return key
+     */
+    public long getKey();
+
+    /**
+     * Unpacks a key made by getKey() on a configuration of the same puzzle
+     *
+     * @param key packed configuration
+     * @return the configuration
+     */
+    public Config fromKey(long key);
+}
@@ -0,0 +1,165 @@
+package puzzles.common.solver;
+
+/**
+ * A hash map from long keys to long values that stores both in flat arrays using open addressing with linear
+ * probing, so an entry costs 16 bytes of array space instead of a boxed entry and two key objects.
+ *
+ * @author Jose Estevez
+ */
+public class LongLongMap {
+    /** marks an unused slot; the key with this value is kept outside the arrays */
+    private static final long FREE = 0;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private boolean hasFreeKey;
+    private long freeValue;
+
+    /**
+     * Constructs an empty map
+     */
+    public LongLongMap() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty map with room for the given number of entries before it has to grow
+     *
+     * @param expected expected number of entries
+     */
+    public LongLongMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    /**
+     * Scrambles a key so keys that differ in only a few bits still spread over the whole table
+     *
+     * @param key the key
+     * @return scrambled key
+     */
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Finds the slot holding the key, or the free slot where it would go
+     *
+     * @param key the key, which must not be FREE
+     * @return slot index
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Checks whether the map has an entry for the key
+     *
+     * @param key the key
+     * @return true if present, else false
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * Returns the value stored for the key
+     *
+     * @param key the key
+     * @param missing value to return if the key isn't present
+     * @return value, or missing
+     */
+    public long get(long key, long missing) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : missing;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    /**
+     * Stores a value for the key, replacing any value already there
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(long key, long value) {
+        if (!putIfAbsent(key, value)) {
+            if (key == FREE) {
+                freeValue = value;
+            }
+            else {
+                values[slot(key)] = value;
+            }
+        }
+    }
+
+    /**
+     * Stores a value for the key only if the key isn't present yet. Solver uses this to check for and record a
+     * new config with a single probe.
+     *
+     * @param key the key
+     * @param value the value
+     * @return true if the value was stored, false if the key was already present
+     */
+    public boolean putIfAbsent(long key, long value) {
+        if (key == FREE) {
+            if (hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = true;
+            freeValue = value;
+            size++;
+            return true;
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            return false;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the table and puts every entry back in
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Accesses the number of entries in the map
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,61 @@
+package puzzles.common.solver;
+
+/**
+ * A first-in first-out queue of longs kept in a growable circular array, used as the BFS queue when configs are
+ * stored as keys.
+ *
+ * @author Jose Estevez
+ */
+class LongQueue {
+    private long[] elements = new long[16];
+    private int head;
+    private int size;
+
+    /**
+     * Adds a long to the back of the queue
+     *
+     * @param value the long
+     */
+    void add(long value) {
+        if (size == elements.length) {
+            long[] larger = new long[elements.length * 2];
+            int first = elements.length - head;
+            System.arraycopy(elements, head, larger, 0, first);
+            System.arraycopy(elements, 0, larger, first, head);
+            elements = larger;
+            head = 0;
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Removes and returns the long at the front of the queue
+     *
+     * @return the long
+     */
+    long remove() {
+        long value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Checks whether the queue is empty
+     *
+     * @return true if empty, else false
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Accesses the number of longs in the queue
+     *
+     * @return size
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,98 @@
+package puzzles.common.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file of longs written by LongRunWriter from start to end, mapping it into memory one segment at a time
+ * so files larger than the heap, or than a single mapping, can be read.
+ *
+ * @author Jose Estevez
+ */
+class LongRunReader implements Closeable {
+    /** size of each mapped segment, a multiple of 8 so no long is split between segments */
+    private static final long SEGMENT_BYTES = 1L << 26;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long position;
+    private long size;
+    private long current;
+    private boolean hasCurrent;
+
+    /**
+     * Opens the file and reads its first long
+     *
+     * @param file the file
+     * @throws IOException if the file can't be read
+     */
+    LongRunReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+        advance();
+    }
+
+    /**
+     * Moves on to the next long in the file, mapping the next segment when the current one runs out
+     *
+     * @throws IOException if the file can't be read
+     */
+    private void advance() throws IOException {
+        if (segment == null || !segment.hasRemaining()) {
+            if (position >= size) {
+                hasCurrent = false;
+                return;
+            }
+            long length = Math.min(SEGMENT_BYTES, size - position);
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+        }
+        current = segment.getLong();
+        hasCurrent = true;
+    }
+
+    /**
+     * Checks whether there are longs left to read
+     *
+     * @return true if there are, else false
+     */
+    boolean hasNext() {
+        return hasCurrent;
+    }
+
+    /**
+     * Returns the next long without reading past it
+     *
+     * @return the next long
+     */
+    long peek() {
+        return current;
+    }
+
+    /**
+     * Returns the next long and reads past it
+     *
+     * @return the next long
+     * @throws IOException if the file can't be read
+     */
+    long next() throws IOException {
+        long value = current;
+        advance();
+        return value;
+    }
+
+    /**
+     * Closes the file
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        channel.close();
+    }
+}
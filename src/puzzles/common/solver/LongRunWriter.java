@@ -0,0 +1,82 @@
+package puzzles.common.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a file of longs through an off-heap buffer. Used by ExternalSolver to spill BFS levels and sorted runs
+ * of keys to disk.
+ *
+ * @author Jose Estevez
+ */
+class LongRunWriter implements Closeable {
+    /** size of the off-heap buffer longs are gathered in before they are written */
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long count;
+
+    /**
+     * Creates the file, replacing it if it already exists
+     *
+     * @param file the file
+     * @throws IOException if the file can't be created
+     */
+    LongRunWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    /**
+     * Adds a long to the end of the file
+     *
+     * @param value the long
+     * @throws IOException if the file can't be written
+     */
+    void write(long value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.putLong(value);
+        count++;
+    }
+
+    /**
+     * Writes out everything in the buffer
+     *
+     * @throws IOException if the file can't be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Accesses the number of longs written so far
+     *
+     * @return number of longs
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes out the buffer and closes the file
+     *
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,177 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A multi-threaded version of Solver. Runs the same BFS one level at a time, splitting the expansion of each level
+ * across a fork-join pool and deduplicating into a concurrent predecessor map, so it still finds a shortest path.
+ * Configs must be safe to read from several threads, which all the built-in configs are since getNeighbors()
+ * never changes the config it is called on.
+ *
+ * The config counts don't match Solver's for the same puzzle. Solver checks each config for the solution as it
+ * is taken off the queue, so it has already expanded the configs ahead of the solution in its level, while this
+ * checks the whole level before expanding any of it. It also always runs a forward search, without Solver's
+ * keys, canonical forms of SymmetricConfigs or bidirectional search, so it keeps every mirror image as a config
+ * of its own. Which config a neighbor is credited to within a level depends on the threads, but the counts
+ * themselves are the same from run to run.
+ *
+ * @author Jose Estevez
+ */
+public class ParallelSolver {
+    /** the most configs a single task expands before it splits its share of the level in half */
+    private static final int SPLIT_THRESHOLD = 256;
+
+    private ConcurrentHashMap<Config, Config> predecessors;
+    private Config config;
+    private int parallelism;
+    private LongAdder totalConfigs;
+
+    /**
+     * Constructs the ParallelSolver using one thread per available processor.
+     *
+     * @param config the config used to solve the puzzle
+     */
+    public ParallelSolver(Config config) {
+        this(config, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs the ParallelSolver, setting up the predecessor map.
+     *
+     * @param config the config used to solve the puzzle
+     * @param parallelism number of threads used to expand each level
+     */
+    public ParallelSolver(Config config, int parallelism) {
+        this.config = config;
+        this.parallelism = parallelism;
+        totalConfigs = new LongAdder();
+        totalConfigs.increment();
+        predecessors = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * The level-synchronous BFS algorithm. Checks every config in the current level for the solution, returning a
+     * path if one is found. Otherwise, the whole level is expanded in parallel and the unique configs become the
+     * next level.
+     *
+     * @return the path if one is found, null otherwise
+     */
+    public ArrayList<Config> solve() {
+        // ConcurrentHashMap can't hold null, so the starting config is its own predecessor
+        predecessors.put(config, config);
+        List<Config> level = Collections.singletonList(config);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (!level.isEmpty()) {
+                for (Config current: level) {
+                    if (current.isSolution()) {
+                        return buildPath(current);
+                    }
+                }
+                level = pool.invoke(new Expand(level, 0, level.size()));
+            }
+            return null;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Builds the path from the starting config to the given config by following the predecessor map.
+     *
+     * @param end last config of the path
+     * @return the path
+     */
+    private ArrayList<Config> buildPath(Config end) {
+        ArrayList<Config> path = new ArrayList<>();
+        Config step = end;
+        path.add(step);
+        while (step != config) {
+            step = predecessors.get(step);
+            path.add(step);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Accesses the total amount of configs created by the solver
+     *
+     * @return total configs
+     */
+    public int getTotalConfigs() {
+        return totalConfigs.intValue();
+    }
+
+    /**
+     * Accesses the amount of unique configs created by the solver
+     *
+     * @return unique configs
+     */
+    public int getUniqueConfigs() {
+        return predecessors.size();
+    }
+
+    /**
+     * Expands a slice of one BFS level, splitting it in half until it is small enough to do directly. Returns the
+     * configs from the slice that had not been seen before.
+     */
+    private class Expand extends RecursiveTask<List<Config>> {
+        private static final long serialVersionUID = 1L;
+
+        private List<Config> level;
+        private int from;
+        private int to;
+
+        /**
+         * Constructs the task for the configs of level from index from up to, but not including, index to.
+         *
+         * @param level the whole level
+         * @param from first index of the slice
+         * @param to index after the last index of the slice
+         */
+        Expand(List<Config> level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Expands the slice, or splits it in two and joins the halves.
+         *
+         * @return the unique configs found
+         */
+        @Override
+        protected List<Config> compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                Expand left = new Expand(level, from, middle);
+                left.fork();
+                List<Config> right = new Expand(level, middle, to).compute();
+                List<Config> next = left.join();
+                next.addAll(right);
+                return next;
+            }
+            ArrayList<Config> next = new ArrayList<>();
+            int generated = 0;
+            for (int i = from; i < to; i++) {
+                Config current = level.get(i);
+                for (Config neighbor: current.getNeighbors()) {
+                    generated++;
+                    if (predecessors.putIfAbsent(neighbor, current) == null) {
+                        next.add(neighbor);
+                    }
+                }
+            }
+            totalConfigs.add(generated);
+            return next;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package puzzles.common.solver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Prints the steps of a solution as "Step n: " followed by each step, one per line. The steps are taken from any
+ * Iterable as they are written, so a lazy one such as ClockSolver is never held in memory, and configs are
+ * written with render() straight into a buffered writer instead of being turned into Strings first. Anything
+ * that isn't a Config is written as its String value.
+ *
+ * @author Jose Estevez
+ */
+public class PathWriter {
+    /** size of the buffer standard output is written through */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes the steps of a solution to standard output through a large buffer, flushing it at the end
+     *
+     * @param steps the steps, from the start to the goal
+     */
+    public static void print(Iterable<?> steps) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE);
+        try {
+            write(steps, out);
+            out.flush();
+        }
+        catch (IOException e) {
+            System.err.println("Failed to print the steps: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Renders a config into a String, for configs whose necessary() is built by their render()
+     *
+     * @param config the config
+     * @return what render() writes for the config
+     */
+    public static String toString(Config config) {
+        StringBuilder result = new StringBuilder();
+        try {
+            config.render(result);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes the steps of a solution to a writer, which should be buffered
+     *
+     * @param steps the steps, from the start to the goal
+     * @param out where the steps are written
+     * @throws IOException if they can't be written
+     */
+    public static void write(Iterable<?> steps, Writer out) throws IOException {
+        String newLine = System.lineSeparator();
+        int step = 0;
+        for (Object config: steps) {
+            out.write("Step ");
+            out.write(Integer.toString(step));
+            out.write(": ");
+            if (config instanceof Config) {
+                ((Config) config).render(out);
+            }
+            else {
+                out.write(String.valueOf(config));
+            }
+            out.write(newLine);
+            step++;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * An optional extension of Config for puzzles whose goal configurations can be listed up front and whose
+ * moves can be run backwards. Solver uses it to search from both ends at once and meet in the middle.
+ *
+ * @author Jose Estevez
+ */
+public interface ReversibleConfig extends Config {
+    /**
+     * Lists every goal configuration reachable in the puzzle this config belongs to. Returns null if the goals
+     * cannot be listed cheaply, in which case Solver falls back to a forward search.
+     *
+     * @return goal configurations, or null
+     */
+    public Collection<Config> getGoals();
+
+    /**
+     * Creates an ArrayList of configurations representing every configuration that has the current
+     * configuration as one of its neighbors
+     *
+     * @return predecessors
+     */
+    public ArrayList<Config> getPredecessors();
+}
@@ -0,0 +1,67 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+
+/**
+ * The result of solving a puzzle: the path, if there is one, and how many configs the search that found it
+ * created. Results read back from a SolutionStore carry the numbers of the search that first solved the puzzle.
+ *
+ * @author Jose Estevez
+ */
+public class Solution {
+    private ArrayList<Config> path;
+    private long totalConfigs;
+    private long uniqueConfigs;
+    private boolean stored;
+
+    /**
+     * Constructs the result of a search
+     *
+     * @param path the path, or null if there is no solution
+     * @param totalConfigs total configs created by the search
+     * @param uniqueConfigs unique configs created by the search
+     * @param stored true if the result was read from a SolutionStore instead of searched for
+     */
+    public Solution(ArrayList<Config> path, long totalConfigs, long uniqueConfigs, boolean stored) {
+        this.path = path;
+        this.totalConfigs = totalConfigs;
+        this.uniqueConfigs = uniqueConfigs;
+        this.stored = stored;
+    }
+
+    /**
+     * Accesses the path from the starting config to the solution
+     *
+     * @return the path, or null if there is no solution
+     */
+    public ArrayList<Config> getPath() {
+        return path;
+    }
+
+    /**
+     * Accesses the total amount of configs created by the search
+     *
+     * @return total configs
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Accesses the amount of unique configs created by the search
+     *
+     * @return unique configs
+     */
+    public long getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+
+    /**
+     * Checks whether the result was read from a SolutionStore instead of searched for
+     *
+     * @return true if stored, else false
+     */
+    public boolean isStored() {
+        return stored;
+    }
+}
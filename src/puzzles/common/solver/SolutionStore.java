@@ -0,0 +1,411 @@
+package puzzles.common.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Keeps the solutions of puzzles on disk so a puzzle solved once, by this run or an earlier one, is read back
+ * instead of searched again. A puzzle is identified by a fingerprint made from a description of the puzzle, such
+ * as its board layout or bucket capacities and goal, and the key of its starting config, so only KeyedConfigs that
+ * have keys can be stored. Each solution is kept as the keys of its path and the numbers of the search.
+ *
+ * Solutions are appended to a data file, each record holding the fingerprint it was stored under so a collision
+ * of the 64-bit fingerprint hash is caught. The index is a memory-mapped open-addressing table from fingerprint
+ * hash to record offset, so a lookup reads the index straight from the mapped file and then reads one record. The
+ * index is rebuilt at twice the size when it is half full.
+ *
+ * Several processes, such as batch jobs run side by side, can share a store. Adding a solution holds an exclusive
+ * lock on the data file, so only one process appends at a time and each appends at the real end of the file. The
+ * record is forced to disk before its index entry is written, so a crash never leaves an entry pointing at a
+ * record that isn't there. When the index is rebuilt, the old index file is marked retired once the new one has
+ * replaced it, and a process that finds its index retired maps the new one before going on. Lookups take no lock,
+ * so one made while another process adds a solution may miss it, which only means solving the puzzle again. File
+ * locks belong to the whole process, so a process should open a directory only once, as shared() does.
+ *
+ * The store used by the front-ends is the one in the directory named by the puzzles.store system property, if it
+ * is set.
+ *
+ * @author Jose Estevez
+ */
+public class SolutionStore implements Closeable {
+    /** system property naming the directory of the store the front-ends use */
+    public static final String DIRECTORY_PROPERTY = "puzzles.store";
+
+    /** marks an index file, "PZSI" */
+    private static final int MAGIC = 0x505A5349;
+    /** marks an index file that has been replaced by a larger one, "PZSR" */
+    private static final int RETIRED = 0x505A5352;
+    /** size of the index header: magic, slot count, slots used */
+    private static final int HEADER_BYTES = 12;
+    /** size of an index slot: fingerprint hash and record offset */
+    private static final int SLOT_BYTES = 16;
+    /** number of slots in a new index */
+    private static final int INITIAL_SLOTS = 1024;
+    /** path length recorded for a puzzle with no solution */
+    private static final int NO_SOLUTION = -1;
+
+    /** the store of the front-ends, opened the first time it is asked for */
+    private static SolutionStore shared;
+    private static boolean sharedOpened;
+
+    private Path indexFile;
+    private FileChannel data;
+    private MappedByteBuffer index;
+    private int slots;
+    private int used;
+
+    /**
+     * Opens the store in a directory, creating its files if they don't exist yet. The data file is locked while
+     * the index is opened, so two processes opening a new store don't both create an index.
+     *
+     * @param directory directory of the store
+     * @throws IOException if the files can't be created or read
+     */
+    public SolutionStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        indexFile = directory.resolve("solutions.idx");
+        data = FileChannel.open(directory.resolve("solutions.dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock = data.lock();
+        try {
+            if (Files.exists(indexFile) && Files.size(indexFile) >= HEADER_BYTES) {
+                openIndex();
+            }
+            else {
+                writeIndex(INITIAL_SLOTS);
+            }
+        }
+        finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Returns the store in the directory named by the puzzles.store system property, opening it the first time
+     *
+     * @return the store, or null if the property isn't set or the store can't be opened
+     */
+    public static synchronized SolutionStore shared() {
+        if (!sharedOpened) {
+            sharedOpened = true;
+            String directory = System.getProperty(DIRECTORY_PROPERTY);
+            if (directory != null) {
+                try {
+                    shared = new SolutionStore(Paths.get(directory));
+                }
+                catch (IOException e) {
+                    System.err.println("Solution store not used: " + e.getMessage());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Solves a puzzle, reading the solution from the shared store if it is there, and otherwise solving it with a
+     * Solver and adding the solution to the shared store. Without a shared store, or if the config has no key, it
+     * just solves the puzzle.
+     *
+     * @param puzzle description of the puzzle, everything about it except the starting config
+     * @param start the starting config
+     * @return the solution
+     */
+    public static Solution solve(String puzzle, Config start) {
+        SolutionStore store = shared();
+        boolean keyed = start instanceof KeyedConfig && ((KeyedConfig) start).hasKey();
+        if (store != null && keyed) {
+            Solution stored = store.get(puzzle, (KeyedConfig) start);
+            if (stored != null) {
+                return stored;
+            }
+        }
+        Solver solver = new Solver(start);
+        ArrayList<Config> path = solver.solve();
+        Solution solution = new Solution(path, solver.getTotalConfigs(), solver.getUniqueConfigs(), false);
+        if (store != null && keyed) {
+            store.put(puzzle, (KeyedConfig) start, solution);
+        }
+        return solution;
+    }
+
+    /**
+     * Looks up the solution of a puzzle
+     *
+     * @param puzzle description of the puzzle, everything about it except the starting config
+     * @param start the starting config
+     * @return the solution, or null if it isn't stored
+     * @throws UncheckedIOException if the data file can't be read
+     */
+    public synchronized Solution get(String puzzle, KeyedConfig start) {
+        byte[] fingerprint = fingerprint(puzzle, start);
+        long hash = hash(fingerprint);
+        try {
+            if (index.getInt(0) == RETIRED) {
+                openIndex();
+            }
+            for (int slot = (int) hash & (slots - 1); ; slot = (slot + 1) & (slots - 1)) {
+                long slotHash = index.getLong(HEADER_BYTES + slot * SLOT_BYTES);
+                if (slotHash == 0) {
+                    return null;
+                }
+                if (slotHash == hash) {
+                    Solution solution = readRecord(index.getLong(HEADER_BYTES + slot * SLOT_BYTES + 8),
+                            fingerprint, start);
+                    if (solution != null) {
+                        return solution;
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the solution of a puzzle to the store, holding the lock on the data file while the record is appended
+     * and forced to disk and its index entry written
+     *
+     * @param puzzle description of the puzzle, everything about it except the starting config
+     * @param start the starting config
+     * @param solution the solution, whose path must be made of KeyedConfigs
+     * @throws UncheckedIOException if the files can't be written
+     */
+    public synchronized void put(String puzzle, KeyedConfig start, Solution solution) {
+        byte[] fingerprint = fingerprint(puzzle, start);
+        ArrayList<Config> path = solution.getPath();
+        int length = path == null ? NO_SOLUTION : path.size();
+        ByteBuffer record = ByteBuffer.allocate(4 + fingerprint.length + 8 + 8 + 4 + Math.max(length, 0) * 8);
+        record.putInt(fingerprint.length).put(fingerprint);
+        record.putLong(solution.getTotalConfigs()).putLong(solution.getUniqueConfigs()).putInt(length);
+        for (int i = 0; i < length; i++) {
+            record.putLong(((KeyedConfig) path.get(i)).getKey());
+        }
+        record.flip();
+        try {
+            FileLock lock = data.lock();
+            try {
+                if (index.getInt(0) == RETIRED) {
+                    openIndex();
+                }
+                used = index.getInt(8);
+                long offset = data.size();
+                while (record.hasRemaining()) {
+                    data.write(record, offset + record.position());
+                }
+                data.force(false);
+                if ((used + 1) * 2 > slots) {
+                    writeIndex(slots * 2);
+                }
+                insert(hash(fingerprint), offset);
+                used++;
+                index.putInt(8, used);
+            }
+            finally {
+                lock.release();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a record from the data file if it was stored under the given fingerprint
+     *
+     * @param offset offset of the record
+     * @param fingerprint the fingerprint looked up
+     * @param start the starting config, used to decode the keys of the path
+     * @return the solution, or null if the record belongs to a different fingerprint with the same hash, or the
+     * offset was read while another process was still writing the index entry
+     * @throws IOException if the data file can't be read
+     */
+    private Solution readRecord(long offset, byte[] fingerprint, KeyedConfig start) throws IOException {
+        if (offset < 0 || offset + 4 + fingerprint.length + 8 + 8 + 4 > data.size()) {
+            return null;
+        }
+        ByteBuffer head = read(offset, 4 + fingerprint.length + 8 + 8 + 4);
+        if (head.getInt() != fingerprint.length) {
+            return null;
+        }
+        byte[] stored = new byte[fingerprint.length];
+        head.get(stored);
+        if (!Arrays.equals(stored, fingerprint)) {
+            return null;
+        }
+        long totalConfigs = head.getLong();
+        long uniqueConfigs = head.getLong();
+        int length = head.getInt();
+        if (length == NO_SOLUTION) {
+            return new Solution(null, totalConfigs, uniqueConfigs, true);
+        }
+        ByteBuffer keys = read(offset + head.capacity(), length * 8);
+        ArrayList<Config> path = new ArrayList<>(length);
+        path.add(start);
+        keys.getLong();
+        for (int i = 1; i < length; i++) {
+            path.add(start.fromKey(keys.getLong()));
+        }
+        return new Solution(path, totalConfigs, uniqueConfigs, true);
+    }
+
+    /**
+     * Reads bytes from the data file
+     *
+     * @param offset offset of the first byte
+     * @param length number of bytes
+     * @return buffer holding the bytes, ready to be read
+     * @throws IOException if the data file can't be read or is too short
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (data.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("solution data file is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Puts a record offset into the first free slot for its hash. The offset is written before the hash, since a
+     * slot only counts as taken once its hash is there.
+     *
+     * @param hash fingerprint hash of the record
+     * @param offset offset of the record
+     */
+    private void insert(long hash, long offset) {
+        int slot = (int) hash & (slots - 1);
+        while (index.getLong(HEADER_BYTES + slot * SLOT_BYTES) != 0) {
+            slot = (slot + 1) & (slots - 1);
+        }
+        index.putLong(HEADER_BYTES + slot * SLOT_BYTES + 8, offset);
+        index.putLong(HEADER_BYTES + slot * SLOT_BYTES, hash);
+    }
+
+    /**
+     * Writes a new index with the given number of slots, holding every entry of the current index, to a temporary
+     * file that then replaces the index file, and maps it. The old index is then marked retired, which other
+     * processes that still have it mapped see straight away.
+     *
+     * @param newSlots number of slots, a power of two
+     * @throws IOException if the index can't be written
+     */
+    private void writeIndex(int newSlots) throws IOException {
+        MappedByteBuffer old = index;
+        int oldSlots = slots;
+        Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temporary);
+        mapIndex(temporary, HEADER_BYTES + (long) newSlots * SLOT_BYTES);
+        slots = newSlots;
+        index.putInt(0, MAGIC);
+        index.putInt(4, newSlots);
+        index.putInt(8, used);
+        for (int slot = 0; old != null && slot < oldSlots; slot++) {
+            long hash = old.getLong(HEADER_BYTES + slot * SLOT_BYTES);
+            if (hash != 0) {
+                insert(hash, old.getLong(HEADER_BYTES + slot * SLOT_BYTES + 8));
+            }
+        }
+        index.force();
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (old != null) {
+            old.putInt(0, RETIRED);
+        }
+    }
+
+    /**
+     * Maps the index file as it is on disk now, mapping it again if it was retired before it could be mapped
+     *
+     * @throws IOException if the file can't be mapped or isn't an index
+     */
+    private void openIndex() throws IOException {
+        mapIndex(indexFile);
+        while (index.getInt(0) == RETIRED) {
+            mapIndex(indexFile);
+        }
+        if (index.getInt(0) != MAGIC) {
+            throw new IOException("not a solution index: " + indexFile);
+        }
+        slots = index.getInt(4);
+        used = index.getInt(8);
+    }
+
+    /**
+     * Maps the whole of an existing index file
+     *
+     * @param file the index file
+     * @throws IOException if the file can't be mapped
+     */
+    private void mapIndex(Path file) throws IOException {
+        mapIndex(file, Files.size(file));
+    }
+
+    /**
+     * Maps an index file of the given size, creating it if it doesn't exist
+     *
+     * @param file the index file
+     * @param size size of the file in bytes
+     * @throws IOException if the file can't be mapped
+     */
+    private void mapIndex(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            index = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Makes the fingerprint of a puzzle from its description and the key of its starting config
+     *
+     * @param puzzle description of the puzzle
+     * @param start the starting config
+     * @return fingerprint bytes
+     */
+    private static byte[] fingerprint(String puzzle, KeyedConfig start) {
+        return (puzzle + "@" + start.getKey()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hashes a fingerprint to 64 bits with FNV-1a followed by a final mix, never returning 0, which marks a free
+     * slot
+     *
+     * @param fingerprint fingerprint bytes
+     * @return hash
+     */
+    private static long hash(byte[] fingerprint) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b: fingerprint) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Writes out the index and closes the data file
+     *
+     * @throws IOException if the files can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        index.force();
+        data.close();
+    }
+}
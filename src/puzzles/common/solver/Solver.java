@@ -1,23 +1,57 @@
 package puzzles.common.solver;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Queue;
+import java.util.function.Consumer;
 
 
 /**
  * Uses a generalized BFS algorithm to solve different types of puzzles. Takes a config and solves the puzzle for
- * that config type
+ * that config type. While it searches it keeps SolverStats, and an optional SolverListener is told about them
+ * periodically and can cancel the search. A search can also be given SolverLimits, in which case it returns a
+ * SolverResult saying whether it finished or which limit stopped it.
+ *
+ * Expansions are only timed when a listener is set or timing is turned on with setTimed(). Then the neighbors of
+ * a config are collected into a list first, so the time spent creating them and the time spent checking them
+ * against the visited configs can be told apart. Otherwise each neighbor is checked as soon as it is handed over
+ * and the clock isn't read per expansion at all. The listener, the time limit and the cancel flag are looked at
+ * once every CHECK_EXPANSIONS expansions, and the limits on unique configs and memory are folded into a single
+ * most number of configs to keep, so an expansion pays one comparison and one countdown for them.
  *
  * @author Jose Estevez
  */
 public class Solver {
+    /** rough bytes each config takes in a search over keys: a slot of the map, kept at most half full, and the queue */
+    private static final long KEYED_BYTES = 64;
+    /** rough bytes each config takes in a search over configs: the config, its map entry and its queue slot */
+    private static final long CONFIG_BYTES = 128;
+    /** expansions between the checks on the listener, the time limit and the cancel flag */
+    private static final int CHECK_EXPANSIONS = 64;
+
     private Queue<Config> queue;
     private HashMap<Config, Config> predecessors;
     private Config config;
     private int totalConfigs;
     private int uniqueConfigs;
+    private ArrayList<Config> neighbors;
+    private Consumer<Config> collectNeighbor;
+    private SolverStats stats;
+    private SolverListener listener;
+    private long listenerNanos;
+    private long nextReport;
+    private boolean timeExpansions;
+    private boolean timed;
+    private int created;
+    private int added;
+    private SolverLimits limits;
+    private long deadline;
+    private long maxVisited;
+    private long untilCheck;
+    private SolverResult.Status stopped;
 
     /**
      * Constructs the Solver, setting up the predecessor map and queue.
@@ -28,49 +62,431 @@ public class Solver {
         this.config = config;
         totalConfigs = 1;
         uniqueConfigs = 1;
-        queue = new LinkedList<>();
+        queue = new ArrayDeque<>();
         predecessors = new HashMap<>();
         queue.add(this.config);
-        predecessors.put(this.config, null);
+        predecessors.put(canonical(this.config), this.config);
+        neighbors = new ArrayList<>();
+        collectNeighbor = neighbors::add;
+        stats = new SolverStats();
     }
 
     /**
-     * The BFS algorithm. Checks if the config at the top of the queue is the solution, finding and returning
-     * a path if it is. Otherwise, it calls the config's getNeighbors() function and adds unique configs
-     * to the queue and predecessor map.
+     * Registers a listener that is told how the search is going at most once per interval, and can cancel it.
+     * Expansions are timed while a listener is set, so the statistics it is given split the time between
+     * creating neighbors and checking them.
+     *
+     * @param listener the listener
+     * @param intervalMillis milliseconds between calls to the listener
+     */
+    public void setListener(SolverListener listener, long intervalMillis) {
+        this.listener = listener;
+        listenerNanos = intervalMillis * 1000000;
+        nextReport = System.nanoTime() + listenerNanos;
+    }
+
+    /**
+     * Turns timing each expansion on or off. Timing splits the time of an expansion between creating neighbors
+     * and checking them, at the cost of reading the clock three times per expansion. It is always on while a
+     * listener is set.
+     *
+     * @param timeExpansions true to time each expansion
+     */
+    public void setTimed(boolean timeExpansions) {
+        this.timeExpansions = timeExpansions;
+    }
+
+    /**
+     * Solves the puzzle. If the config is a ReversibleConfig that can list its goals, a bidirectional search
+     * is used. Otherwise, a forward BFS is used, over keys if the config is a KeyedConfig that has them.
      *
      * @return the path if one is found, null otherwise
      */
     public ArrayList<Config> solve() {
+        return search(null);
+    }
+
+    /**
+     * Solves the puzzle the same way as solve(), but stops as soon as one of the limits is reached. The limits on
+     * unique configs and memory are checked after every expansion, the time limit and the cancel flag every
+     * CHECK_EXPANSIONS expansions.
+     *
+     * @param limits limits of the search
+     * @return the result, with the path if one was found and the statistics as far as the search got
+     */
+    public SolverResult solve(SolverLimits limits) {
+        ArrayList<Config> path = search(limits);
+        SolverResult.Status status;
+        if (path != null) {
+            status = SolverResult.Status.SOLVED;
+        }
+        else if (stopped != null) {
+            status = stopped;
+        }
+        else {
+            status = SolverResult.Status.NO_SOLUTION;
+        }
+        return new SolverResult(status, path, stats, totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * Sets up the statistics, listener and limits and runs the search that fits the config
+     *
+     * @param limits limits of the search, or null for none
+     * @return the path if one is found, null otherwise
+     */
+    private ArrayList<Config> search(SolverLimits limits) {
+        stats = new SolverStats();
+        stopped = null;
+        this.limits = limits;
+        timed = timeExpansions || listener != null;
+        long now = System.nanoTime();
+        nextReport = listener == null ? Long.MAX_VALUE : now + listenerNanos;
+        deadline = Long.MAX_VALUE;
+        maxVisited = Long.MAX_VALUE;
+        untilCheck = listener == null && limits == null ? Long.MAX_VALUE : CHECK_EXPANSIONS;
+        if (limits != null) {
+            long end = now + limits.getTimeLimitNanos();
+            if (end >= now) {
+                deadline = end;
+            }
+        }
+        ArrayList<Config> path;
+        Collection<Config> goals = config instanceof ReversibleConfig ? ((ReversibleConfig) config).getGoals() : null;
+        if (goals != null) {
+            limitVisited(CONFIG_BYTES);
+            path = solveBidirectional(goals);
+        }
+        else if (config instanceof KeyedConfig && ((KeyedConfig) config).hasKey()) {
+            limitVisited(KEYED_BYTES);
+            path = solveKeyed((KeyedConfig) config);
+        }
+        else {
+            limitVisited(CONFIG_BYTES);
+            path = solveForward();
+        }
+        stats.finished(System.nanoTime());
+        return path;
+    }
+
+    /**
+     * Works out the most configs the search may keep, from the limit on unique configs and the limit on memory
+     *
+     * @param bytesPerConfig rough bytes each config takes in the search about to run
+     */
+    private void limitVisited(long bytesPerConfig) {
+        if (limits != null) {
+            maxVisited = Math.min(limits.getMaxUniqueConfigs(), limits.getMaxMemory() / bytesPerConfig);
+        }
+    }
+
+    /**
+     * The BFS algorithm. Checks if the config at the top of the queue is the solution, finding and returning
+     * a path if it is. Otherwise, it calls the config's forEachNeighbor() function and adds unique configs
+     * to the queue and predecessor map. The predecessor map is keyed by canonical form, so a config symmetric
+     * to one already seen counts as seen, but the queue and the map's values are the configs as really reached,
+     * so the path never switches orientation. The starting config is its own predecessor, so no value in the map
+     * is null and a single putIfAbsent() both checks and records each neighbor. The path is rebuilt by following
+     * the predecessors back from the solution and reversing the list once, so it takes time in proportion to its
+     * length.
+     *
+     * @return the path if one is found, null otherwise
+     */
+    private ArrayList<Config> solveForward() {
+        int levelLeft = 1;
+        int nextLevel = 0;
+        stats.addLevel(1);
         while (!queue.isEmpty()) {
             Config current = queue.remove();
             if (isSolution(current)) {
                 ArrayList<Config> path = new ArrayList<>();
-                Config predecessor = predecessors.get(current);
-                path.add(current);
-                if (predecessor == null) {
-                    return path;
+                Config step = current;
+                path.add(step);
+                while (step != config) {
+                    step = predecessors.get(canonical(step));
+                    path.add(step);
+                }
+                Collections.reverse(path);
+                return path;
+            }
+            boolean going = expand(current, neighbor -> {
+                totalConfigs++;
+                created++;
+                if (predecessors.putIfAbsent(canonical(neighbor), current) == null) {
+                    queue.add(neighbor);
+                    uniqueConfigs++;
+                    added++;
                 }
-                path.add(0, predecessor);
-                while (predecessor != config) {
-                    predecessor = predecessors.get(predecessor);
-                    path.add(0, predecessor);
+            });
+            nextLevel += added;
+            if (--levelLeft == 0 && nextLevel > 0) {
+                stats.addLevel(nextLevel);
+                levelLeft = nextLevel;
+                nextLevel = 0;
+            }
+            if (!going) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The BFS algorithm over keys. Works the same way as solveForward(), but the queue and predecessor map hold
+     * the long key of each config, with the starting key as its own predecessor. Configs are decoded from their
+     * keys to be expanded and when the path is rebuilt. Just like in solveForward(), the map is keyed by the key
+     * of the canonical form and holds the keys of configs as really reached.
+     *
+     * @param start the starting config
+     * @return the path if one is found, null otherwise
+     */
+    private ArrayList<Config> solveKeyed(KeyedConfig start) {
+        LongQueue keys = new LongQueue();
+        LongLongMap keyedPredecessors = new LongLongMap();
+        long startKey = start.getKey();
+        keys.add(startKey);
+        keyedPredecessors.put(canonicalKey(start), startKey);
+        int levelLeft = 1;
+        int nextLevel = 0;
+        stats.addLevel(1);
+        while (!keys.isEmpty()) {
+            long key = keys.remove();
+            Config current = key == startKey ? start : start.fromKey(key);
+            if (isSolution(current)) {
+                ArrayList<Config> path = new ArrayList<>();
+                path.add(current);
+                while (key != startKey) {
+                    key = keyedPredecessors.get(canonicalKey(start.fromKey(key)), startKey);
+                    path.add(key == startKey ? start : start.fromKey(key));
                 }
+                Collections.reverse(path);
                 return path;
             }
-            ArrayList<Config> neighbors = current.getNeighbors();
-            for (Config config: neighbors) {
+            long parent = key;
+            boolean going = expand(current, neighbor -> {
                 totalConfigs++;
-                if (!predecessors.containsKey(config)) {
-                    queue.add(config);
-                    predecessors.put(config, current);
+                created++;
+                if (keyedPredecessors.putIfAbsent(canonicalKey(neighbor), parent)) {
+                    keys.add(((KeyedConfig) neighbor).getKey());
                     uniqueConfigs++;
+                    added++;
                 }
+            });
+            nextLevel += added;
+            if (--levelLeft == 0 && nextLevel > 0) {
+                stats.addLevel(nextLevel);
+                levelLeft = nextLevel;
+                nextLevel = 0;
+            }
+            if (!going) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The bidirectional BFS algorithm. Expands one whole level at a time from whichever side has the smaller
+     * frontier: forwards from the starting config with getNeighbors(), or backwards from the goals with
+     * getPredecessors(). The first config seen from both sides lies on a shortest path, which is rebuilt from
+     * the predecessor map and the successor map.
+     *
+     * @param goals every reachable goal config
+     * @return the path if one is found, null otherwise
+     */
+    private ArrayList<Config> solveBidirectional(Collection<Config> goals) {
+        if (isSolution(config)) {
+            ArrayList<Config> path = new ArrayList<>();
+            path.add(config);
+            return path;
+        }
+        HashMap<Config, Config> successors = new HashMap<>();
+        ArrayList<Config> forwardFrontier = new ArrayList<>();
+        ArrayList<Config> backwardFrontier = new ArrayList<>();
+        forwardFrontier.add(config);
+        for (Config goal: goals) {
+            totalConfigs++;
+            if (!successors.containsKey(goal)) {
+                successors.put(goal, null);
+                backwardFrontier.add(goal);
+                uniqueConfigs++;
+            }
+        }
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+            ArrayList<Config> next = new ArrayList<>();
+            if (forwardFrontier.size() <= backwardFrontier.size()) {
+                stats.addLevel(forwardFrontier.size());
+                for (Config current: forwardFrontier) {
+                    long started = timed ? System.nanoTime() : 0;
+                    ArrayList<Config> neighbors = current.getNeighbors();
+                    long neighborsDone = timed ? System.nanoTime() : 0;
+                    created = neighbors.size();
+                    added = 0;
+                    for (Config neighbor: neighbors) {
+                        totalConfigs++;
+                        if (predecessors.putIfAbsent(neighbor, current) == null) {
+                            uniqueConfigs++;
+                            added++;
+                            if (successors.containsKey(neighbor)) {
+                                expanded(started, neighborsDone);
+                                return joinPath(neighbor, successors);
+                            }
+                            next.add(neighbor);
+                        }
+                    }
+                    if (!expanded(started, neighborsDone)) {
+                        return null;
+                    }
+                }
+                forwardFrontier = next;
+            }
+            else {
+                stats.addLevel(backwardFrontier.size());
+                for (Config current: backwardFrontier) {
+                    long started = timed ? System.nanoTime() : 0;
+                    ArrayList<Config> neighbors = ((ReversibleConfig) current).getPredecessors();
+                    long neighborsDone = timed ? System.nanoTime() : 0;
+                    created = neighbors.size();
+                    added = 0;
+                    for (Config predecessor: neighbors) {
+                        totalConfigs++;
+                        if (!successors.containsKey(predecessor)) {
+                            successors.put(predecessor, current);
+                            uniqueConfigs++;
+                            added++;
+                            if (predecessors.containsKey(predecessor)) {
+                                expanded(started, neighborsDone);
+                                return joinPath(predecessor, successors);
+                            }
+                            next.add(predecessor);
+                        }
+                    }
+                    if (!expanded(started, neighborsDone)) {
+                        return null;
+                    }
+                }
+                backwardFrontier = next;
             }
         }
         return null;
     }
 
+    /**
+     * Builds the path through the config where the two halves of a bidirectional search met, following the
+     * predecessor map back to the start and the successor map on to a goal.
+     *
+     * @param meeting config seen from both sides
+     * @param successors map from each config to the next config on its way to a goal
+     * @return the full path
+     */
+    private ArrayList<Config> joinPath(Config meeting, HashMap<Config, Config> successors) {
+        ArrayList<Config> path = new ArrayList<>();
+        Config step = meeting;
+        path.add(step);
+        while (step != config) {
+            step = predecessors.get(step);
+            path.add(step);
+        }
+        Collections.reverse(path);
+        step = successors.get(meeting);
+        while (step != null) {
+            path.add(step);
+            step = successors.get(step);
+        }
+        return path;
+    }
+
+    /**
+     * Expands a config, handing each of its neighbors to the consumer that checks it against the visited
+     * configs. If expansions are timed, the neighbors are collected into a list first so the time spent creating
+     * them can be told apart from the time spent checking them, otherwise each is checked as soon as it is
+     * created. The consumer counts the neighbors in created and the new ones in added.
+     *
+     * @param current the config
+     * @param dedup checks a neighbor against the visited configs
+     * @return true to keep searching, false if the search was cancelled or reached a limit
+     */
+    private boolean expand(Config current, Consumer<Config> dedup) {
+        created = 0;
+        added = 0;
+        if (!timed) {
+            current.forEachNeighbor(dedup);
+            return expanded(0, 0);
+        }
+        long started = System.nanoTime();
+        neighbors.clear();
+        current.forEachNeighbor(collectNeighbor);
+        long neighborsDone = System.nanoTime();
+        for (Config neighbor: neighbors) {
+            dedup.accept(neighbor);
+        }
+        return expanded(started, neighborsDone);
+    }
+
+    /**
+     * Records the expansion of a config in the statistics and checks that the search may go on. Most of the time
+     * that is only comparing the number of configs seen with the most allowed and counting down to the next
+     * check. At that check the clock is read, the listener is told how the search is going once its interval has
+     * passed, and the time limit and cancel flag are checked.
+     *
+     * @param started time the expansion started, if timed
+     * @param neighborsDone time all the neighbors had been created, if timed
+     * @return true to keep searching, false if the search was cancelled or reached a limit
+     */
+    private boolean expanded(long started, long neighborsDone) {
+        if (timed) {
+            stats.expanded(started, neighborsDone, System.nanoTime(), created, added, uniqueConfigs);
+        }
+        else {
+            stats.counted(created, added, uniqueConfigs);
+        }
+        if (uniqueConfigs > maxVisited) {
+            stopped = uniqueConfigs > limits.getMaxUniqueConfigs() ? SolverResult.Status.STATE_LIMIT
+                    : SolverResult.Status.MEMORY_LIMIT;
+            return false;
+        }
+        if (--untilCheck > 0) {
+            return true;
+        }
+        untilCheck = CHECK_EXPANSIONS;
+        long now = System.nanoTime();
+        if (now >= nextReport) {
+            nextReport = now + listenerNanos;
+            if (!listener.progress(stats)) {
+                stopped = SolverResult.Status.CANCELLED;
+                return false;
+            }
+        }
+        if (now >= deadline) {
+            stopped = SolverResult.Status.TIME_LIMIT;
+            return false;
+        }
+        if (limits != null && limits.isCancelled()) {
+            stopped = SolverResult.Status.CANCELLED;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Accesses the statistics of the last search, or of the one still running
+     *
+     * @return statistics
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Checks whether the last search was cancelled by the listener, or stopped by a limit, rather than running
+     * out of configs
+     *
+     * @return true if cancelled, else false
+     */
+    public boolean isCancelled() {
+        return stopped != null;
+    }
+
     /**
      * Accesses the total amount of configs created by the solver
      *
@@ -89,6 +505,29 @@ public class Solver {
         return uniqueConfigs;
     }
 
+    /**
+     * Returns the canonical form of a config if it is a SymmetricConfig, otherwise the config itself
+     *
+     * @param current the config
+     * @return canonical form
+     */
+    private static Config canonical(Config current) {
+        if (current instanceof SymmetricConfig) {
+            return ((SymmetricConfig) current).canonical();
+        }
+        return current;
+    }
+
+    /**
+     * Returns the key of the canonical form of a KeyedConfig
+     *
+     * @param current the config
+     * @return key of its canonical form
+     */
+    private static long canonicalKey(Config current) {
+        return ((KeyedConfig) canonical(current)).getKey();
+    }
+
     /**
      * Checks whether the current configuration is the goal config
      *
@@ -0,0 +1,94 @@
+package puzzles.common.solver;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits on a Solver search: how long it may run, how many unique configs it may keep, roughly how much memory
+ * those configs may take, and a flag another thread can set to cancel it. Every limit starts out unlimited. The
+ * same limits can be used for any number of searches, since the time limit is counted from the start of each.
+ *
+ * @author Jose Estevez
+ */
+public class SolverLimits {
+    private long timeLimitNanos = Long.MAX_VALUE;
+    private long maxUniqueConfigs = Long.MAX_VALUE;
+    private long maxMemoryBytes = Long.MAX_VALUE;
+    private AtomicBoolean cancelToken;
+
+    /**
+     * Sets how long a search may run before it is stopped. The clock is only read every 64 expansions, so the
+     * search can run over by the time those take.
+     *
+     * @param millis milliseconds from the start of the search
+     */
+    public void setTimeLimit(long millis) {
+        timeLimitNanos = millis >= Long.MAX_VALUE / 1000000 ? Long.MAX_VALUE : millis * 1000000;
+    }
+
+    /**
+     * Sets the most unique configs a search may keep before it is stopped. It is checked after each config is
+     * expanded, so the search can go over by the neighbors of one config.
+     *
+     * @param maxUniqueConfigs most unique configs
+     */
+    public void setMaxUniqueConfigs(long maxUniqueConfigs) {
+        this.maxUniqueConfigs = maxUniqueConfigs;
+    }
+
+    /**
+     * Sets the most memory the configs a search keeps may take before it is stopped. The memory isn't measured,
+     * it is estimated from the number of configs kept and whether they are kept as keys or as configs, so it is
+     * only a rough limit.
+     *
+     * @param bytes most bytes
+     */
+    public void setMaxMemory(long bytes) {
+        maxMemoryBytes = bytes;
+    }
+
+    /**
+     * Sets a flag that stops the search soon after another thread sets it to true. Like the time limit, it is
+     * checked every 64 expansions.
+     *
+     * @param cancelToken the flag
+     */
+    public void setCancelToken(AtomicBoolean cancelToken) {
+        this.cancelToken = cancelToken;
+    }
+
+    /**
+     * Accesses how long a search may run
+     *
+     * @return nanoseconds, or Long.MAX_VALUE if there is no limit
+     */
+    public long getTimeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    /**
+     * Accesses the most unique configs a search may keep
+     *
+     * @return most unique configs, or Long.MAX_VALUE if there is no limit
+     */
+    public long getMaxUniqueConfigs() {
+        return maxUniqueConfigs;
+    }
+
+    /**
+     * Accesses the most memory the configs a search keeps may take
+     *
+     * @return most bytes, or Long.MAX_VALUE if there is no limit
+     */
+    public long getMaxMemory() {
+        return maxMemoryBytes;
+    }
+
+    /**
+     * Checks whether the search has been cancelled through the flag
+     *
+     * @return true if a flag was set up and is true, else false
+     */
+    public boolean isCancelled() {
+        return cancelToken != null && cancelToken.get();
+    }
+}
@@ -0,0 +1,17 @@
+package puzzles.common.solver;
+
+/**
+ * Gets told how a Solver search is going while it runs, and can stop it. The solver calls it from the thread
+ * running the search, no more often than the interval it was registered with.
+ *
+ * @author Jose Estevez
+ */
+public interface SolverListener {
+    /**
+     * Called periodically during a search with the statistics gathered so far
+     *
+     * @param stats statistics of the search so far
+     * @return true to keep searching, false to cancel the search
+     */
+    public boolean progress(SolverStats stats);
+}
@@ -0,0 +1,116 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+
+/**
+ * The result of a Solver search run with SolverLimits. Besides the path, it says whether the search finished or
+ * which limit stopped it, and carries the statistics gathered up to that point, so a stopped search still tells
+ * how far it got.
+ *
+ * @author Jose Estevez
+ */
+public class SolverResult {
+    /**
+     * How a search ended
+     */
+    public enum Status {
+        /** a solution was found */
+        SOLVED,
+        /** every reachable config was searched without finding a solution */
+        NO_SOLUTION,
+        /** the time limit ran out */
+        TIME_LIMIT,
+        /** the search kept as many unique configs as it was allowed */
+        STATE_LIMIT,
+        /** the configs the search kept were estimated to take more memory than it was allowed */
+        MEMORY_LIMIT,
+        /** the cancel flag was set, or the listener cancelled the search */
+        CANCELLED
+    }
+
+    private Status status;
+    private ArrayList<Config> path;
+    private SolverStats stats;
+    private long totalConfigs;
+    private long uniqueConfigs;
+
+    /**
+     * Constructs the result of a search
+     *
+     * @param status how the search ended
+     * @param path the path, or null unless the status is SOLVED
+     * @param stats statistics of the search
+     * @param totalConfigs total configs created by the search
+     * @param uniqueConfigs unique configs created by the search
+     */
+    SolverResult(Status status, ArrayList<Config> path, SolverStats stats, long totalConfigs, long uniqueConfigs) {
+        this.status = status;
+        this.path = path;
+        this.stats = stats;
+        this.totalConfigs = totalConfigs;
+        this.uniqueConfigs = uniqueConfigs;
+    }
+
+    /**
+     * Accesses how the search ended
+     *
+     * @return status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks whether the search was stopped by a limit or cancelled before it could finish
+     *
+     * @return true if stopped, false if it found a solution or showed there isn't one
+     */
+    public boolean isStopped() {
+        return status != Status.SOLVED && status != Status.NO_SOLUTION;
+    }
+
+    /**
+     * Accesses the path from the starting config to the solution
+     *
+     * @return the path, or null unless a solution was found
+     */
+    public ArrayList<Config> getPath() {
+        return path;
+    }
+
+    /**
+     * Accesses the statistics of the search, as far as it got
+     *
+     * @return statistics
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Accesses the number of the deepest BFS level the search reached, the starting config's level being 0
+     *
+     * @return deepest level
+     */
+    public int getDeepestLevel() {
+        return stats.getDepth();
+    }
+
+    /**
+     * Accesses the total amount of configs created by the search
+     *
+     * @return total configs
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Accesses the amount of unique configs created by the search
+     *
+     * @return unique configs
+     */
+    public long getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+}
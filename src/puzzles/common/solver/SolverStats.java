@@ -0,0 +1,183 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics Solver gathers while it searches: how many configs each BFS level held, how many configs were
+ * expanded and how fast, how many neighbors turned out to be duplicates, how large the map of visited configs
+ * grew, and how the time split between creating neighbors and checking them against the map. The split is only
+ * measured when the search times its expansions, which it does while it has a listener or after setTimed(true),
+ * otherwise both times are 0.
+ *
+ * @author Jose Estevez
+ */
+public class SolverStats {
+    private ArrayList<Long> levels;
+    private long expansions;
+    private long generated;
+    private long duplicates;
+    private long peakVisited;
+    private long neighborNanos;
+    private long dedupNanos;
+    private long startNanos;
+    private long lastNanos;
+
+    /**
+     * Constructs empty statistics, timed from now
+     */
+    SolverStats() {
+        levels = new ArrayList<>();
+        startNanos = System.nanoTime();
+        lastNanos = startNanos;
+    }
+
+    /**
+     * Records the number of configs in the next BFS level
+     *
+     * @param size number of configs in the level
+     */
+    void addLevel(long size) {
+        levels.add(size);
+    }
+
+    /**
+     * Records the expansion of one config
+     *
+     * @param started time the expansion started
+     * @param neighborsDone time all the neighbors had been created
+     * @param done time all the neighbors had been checked against the visited map
+     * @param neighbors number of neighbors created
+     * @param added number of neighbors that hadn't been seen before
+     * @param visited size of the visited map afterwards
+     */
+    void expanded(long started, long neighborsDone, long done, int neighbors, int added, long visited) {
+        expansions++;
+        generated += neighbors;
+        duplicates += neighbors - added;
+        peakVisited = Math.max(peakVisited, visited);
+        neighborNanos += neighborsDone - started;
+        dedupNanos += done - neighborsDone;
+        lastNanos = done;
+    }
+
+    /**
+     * Records the expansion of one config that wasn't timed
+     *
+     * @param neighbors number of neighbors created
+     * @param added number of neighbors that hadn't been seen before
+     * @param visited size of the visited map afterwards
+     */
+    void counted(int neighbors, int added, long visited) {
+        expansions++;
+        generated += neighbors;
+        duplicates += neighbors - added;
+        peakVisited = Math.max(peakVisited, visited);
+    }
+
+    /**
+     * Records the time the search finished
+     *
+     * @param done time the search finished
+     */
+    void finished(long done) {
+        lastNanos = done;
+    }
+
+    /**
+     * Accesses the number of configs in each BFS level, starting with the level of the starting config. A
+     * bidirectional search lists each level it expanded, from either side, in the order it expanded them.
+     *
+     * @return sizes of the levels
+     */
+    public List<Long> getLevelSizes() {
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * Accesses the number of the deepest BFS level reached, the starting config's level being 0
+     *
+     * @return deepest level
+     */
+    public int getDepth() {
+        return Math.max(levels.size() - 1, 0);
+    }
+
+    /**
+     * Accesses the number of configs expanded
+     *
+     * @return expansions
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Accesses the number of configs expanded per second over the whole search so far
+     *
+     * @return expansions per second
+     */
+    public double getExpansionsPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0 : expansions * 1e9 / elapsed;
+    }
+
+    /**
+     * Accesses the fraction of created neighbors that had already been seen
+     *
+     * @return duplicate hits divided by neighbors created, or 0 if none were created
+     */
+    public double getDuplicateRatio() {
+        return generated == 0 ? 0 : (double) duplicates / generated;
+    }
+
+    /**
+     * Accesses the largest number of configs the visited map held
+     *
+     * @return peak visited map size
+     */
+    public long getPeakVisited() {
+        return peakVisited;
+    }
+
+    /**
+     * Accesses the time spent creating neighbors
+     *
+     * @return nanoseconds in getNeighbors() or forEachNeighbor()
+     */
+    public long getNeighborNanos() {
+        return neighborNanos;
+    }
+
+    /**
+     * Accesses the time spent checking neighbors against the visited map and queueing new ones
+     *
+     * @return nanoseconds deduplicating
+     */
+    public long getDedupNanos() {
+        return dedupNanos;
+    }
+
+    /**
+     * Accesses the time from the start of the search to the last timed expansion, or to its end once it finished
+     *
+     * @return elapsed nanoseconds
+     */
+    public long getElapsedNanos() {
+        return lastNanos - startNanos;
+    }
+
+    /**
+     * Summarises the statistics on one line
+     *
+     * @return summary
+     */
+    @Override
+    public String toString() {
+        return String.format("depth %d, expansions %d (%.0f/s), duplicates %.1f%%, peak visited %d, "
+                        + "neighbors %d ms, dedup %d ms, levels %s",
+                getDepth(), expansions, getExpansionsPerSecond(), getDuplicateRatio() * 100, peakVisited,
+                neighborNanos / 1000000, dedupNanos / 1000000, levels);
+    }
+}
@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+/**
+ * An optional extension of Config for puzzles whose configurations can be symmetric to each other, such as mirror
+ * images of the same board. Solver uses the canonical form to recognise a config it has already seen in another
+ * orientation, while still following and returning the configs in the orientation they were really reached in.
+ *
+ * @author Jose Estevez
+ */
+public interface SymmetricConfig extends Config {
+    /**
+     * Returns the same configuration for every configuration symmetric to this one. It is only compared, never
+     * shown, so it doesn't have to be one of the configurations a path would pass through.
+     *
+     * @return canonical form of this configuration
+     */
+    public Config canonical();
+}
@@ -3,19 +3,37 @@ package puzzles.common.solver;
 import puzzles.water.Bucket;
 import puzzles.water.Water;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * This class represents a single WaterConfig. It implements the Config interface and implements all required
- * methods. It holds the goal amount and an array of Buckets. It is used for the Water puzzle.
+ * methods. It holds the goal amount and an array of Buckets. It is used for the Water puzzle. The buckets start
+ * out empty, and every move leaves the bucket poured from empty or the one poured into full, so at most one
+ * bucket is ever partly filled, and every level is a multiple of the gcd of the capacities. That narrows the goal
+ * configs down to the few that can be reached, which makes it a ReversibleConfig as long as there aren't too many
+ * of them, and the predecessors to the ones that could have been reached themselves. It is also a KeyedConfig whenever the bucket levels, each given just
+ * enough bits to hold its capacity, fit in a long together. As a HeuristicConfig it can only tell whether the goal
+ * is reachable at all, since every amount a bucket can hold is a multiple of the gcd of the capacities.
+ *
+ * Its hash is a Zobrist hash, the xor of a random-looking number for each bucket and its level, worked out when
+ * the config is created. A move only changes one or two buckets, so a neighbor's hash is this config's hash with
+ * the numbers for the old levels of those buckets xored out and the new ones xored in, and getHash() returns
+ * all 64 bits of it.
  *
  * @author Jose Estevez
  */
-public class WaterConfig implements Config{
+public class WaterConfig implements ReversibleConfig, KeyedConfig, HeuristicConfig, HashedConfig {
+    /** the most goal configs getGoals() will list before giving up */
+    private static final int MAX_GOALS = 1 << 16;
+
     private int goal;
     private Bucket[] buckets;
+    private final long zobrist;
 
     /**
      * Constructs a WaterConfig, setting up the goal and array of Buckets from a String array of arguments.
@@ -28,6 +46,7 @@ public class WaterConfig implements Config{
         for (int i = 1; i < args.length; i++) {
             buckets[i-1] = new Bucket(Integer.parseInt(args[i]));
         }
+        zobrist = hashLevels();
     }
 
     /**
@@ -42,6 +61,79 @@ public class WaterConfig implements Config{
             this.buckets[i] = new Bucket(other.buckets[i].getCapacity());
             this.buckets[i].fill(other.buckets[i].getCurrent());
         }
+        this.zobrist = other.zobrist;
+    }
+
+    /**
+     * Constructs a WaterConfig with the same goal and capacities as another one and the given bucket levels
+     *
+     * @param other WaterConfig whose goal and capacities are used
+     * @param levels amount of water in each bucket
+     */
+    private WaterConfig(WaterConfig other, int[] levels) {
+        this.goal = other.goal;
+        this.buckets = new Bucket[other.buckets.length];
+        for (int i = 0; i < other.buckets.length; i++) {
+            this.buckets[i] = new Bucket(other.buckets[i].getCapacity());
+            this.buckets[i].fill(levels[i]);
+        }
+        this.zobrist = hashLevels();
+    }
+
+    /**
+     * Constructs a copy of a WaterConfig with the levels of one or two buckets changed, updating the hash for
+     * just those buckets
+     *
+     * @param other WaterConfig being copied
+     * @param first index of the first bucket to change
+     * @param firstLevel new amount of water in that bucket
+     * @param second index of the second bucket to change, or -1 if only one changes
+     * @param secondLevel new amount of water in that bucket
+     */
+    private WaterConfig(WaterConfig other, int first, int firstLevel, int second, int secondLevel) {
+        this.goal = other.goal;
+        this.buckets = new Bucket[other.buckets.length];
+        for (int i = 0; i < other.buckets.length; i++) {
+            this.buckets[i] = new Bucket(other.buckets[i].getCapacity());
+            this.buckets[i].fill(other.buckets[i].getCurrent());
+        }
+        long hash = other.zobrist ^ zobrist(first, buckets[first].getCurrent()) ^ zobrist(first, firstLevel);
+        buckets[first].dump();
+        buckets[first].fill(firstLevel);
+        if (second >= 0) {
+            hash ^= zobrist(second, buckets[second].getCurrent()) ^ zobrist(second, secondLevel);
+            buckets[second].dump();
+            buckets[second].fill(secondLevel);
+        }
+        this.zobrist = hash;
+    }
+
+    /**
+     * Returns the Zobrist number of a bucket holding a level, mixing the two with the SplitMix64 finaliser so
+     * no table of numbers has to be kept for large capacities
+     *
+     * @param bucket index of the bucket
+     * @param level amount of water in it
+     * @return the number
+     */
+    private static long zobrist(int bucket, int level) {
+        long z = ((long) bucket << 32 | level) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Works out the Zobrist hash of the current levels from scratch
+     *
+     * @return the hash
+     */
+    private long hashLevels() {
+        long hash = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            hash ^= zobrist(i, buckets[i].getCurrent());
+        }
+        return hash;
     }
 
     /**
@@ -54,21 +146,190 @@ public class WaterConfig implements Config{
     @Override
     public ArrayList<Config> getNeighbors() {
         ArrayList<Config> configs = new ArrayList<>();
+        forEachNeighbor(configs::add);
+        return configs;
+    }
+
+    /**
+     * Creates the same successors as getNeighbors(), handing each one to the consumer instead of adding it to
+     * a list.
+     *
+     * @param consumer consumer each successor is handed to
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Config> consumer) {
         for (int i = 0; i < buckets.length; i++) {
             if (buckets[i].space() > 0) {
-                WaterConfig fill = new WaterConfig(this);
-                fill.buckets[i].fill();
-                configs.add(fill);
+                consumer.accept(new WaterConfig(this, i, buckets[i].getCapacity(), -1, 0));
             }
             if (buckets[i].getCurrent() > 0) {
-                WaterConfig dump = new WaterConfig(this);
-                dump.buckets[i].dump();
-                configs.add(dump);
+                consumer.accept(new WaterConfig(this, i, 0, -1, 0));
                 for (int e = 0; e < buckets.length; e++) {
                     if (i != e) {
-                        WaterConfig pour = new WaterConfig(this);
-                        pour.buckets[i].pour(pour.buckets[e]);
-                        configs.add(pour);
+                        int amount = Math.min(buckets[i].getCurrent(), buckets[e].space());
+                        consumer.accept(new WaterConfig(this, i, buckets[i].getCurrent() - amount,
+                                e, buckets[e].getCurrent() + amount));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists every goal config a sequence of moves can reach: one bucket holds the goal amount, at most one bucket
+     * is partly filled, and every level is a multiple of the gcd of the capacities. Returns null if there are
+     * more than MAX_GOALS of them, or if this config doesn't fit that shape itself, since then the goals it can
+     * reach aren't known.
+     *
+     * @return goal configs, or null
+     */
+    @Override
+    public Collection<Config> getGoals() {
+        int gcd = capacityGcd();
+        int[] levels = getLevels();
+        if (!fits(levels, gcd, -1, 0, -1, 0)) {
+            return null;
+        }
+        LinkedHashSet<Config> goals = new LinkedHashSet<>();
+        for (int i = 0; i < buckets.length; i++) {
+            if (goal <= buckets[i].getCapacity()) {
+                boolean partial = goal > 0 && goal < buckets[i].getCapacity();
+                if (!addGoals(goals, levels, gcd, i, 0, partial)) {
+                    return null;
+                }
+            }
+        }
+        return goals;
+    }
+
+    /**
+     * Recursively fills in every bucket but the one holding the goal, each either empty, full or, if no bucket
+     * is partly filled yet, any other multiple of the gcd, adding each resulting config.
+     *
+     * @param goals set the goal configs are added to
+     * @param levels bucket levels chosen so far
+     * @param gcd gcd of the capacities
+     * @param goalBucket index of the bucket holding the goal amount
+     * @param index index of the next bucket to fill in
+     * @param partial whether a bucket is already partly filled
+     * @return false if there turned out to be more than MAX_GOALS goals, else true
+     */
+    private boolean addGoals(LinkedHashSet<Config> goals, int[] levels, int gcd, int goalBucket, int index,
+                             boolean partial) {
+        if (index == buckets.length) {
+            goals.add(withLevels(levels));
+            return goals.size() <= MAX_GOALS;
+        }
+        if (index == goalBucket) {
+            levels[index] = goal;
+            return addGoals(goals, levels, gcd, goalBucket, index + 1, partial);
+        }
+        int capacity = buckets[index].getCapacity();
+        levels[index] = 0;
+        if (!addGoals(goals, levels, gcd, goalBucket, index + 1, partial)) {
+            return false;
+        }
+        if (capacity > 0) {
+            levels[index] = capacity;
+            if (!addGoals(goals, levels, gcd, goalBucket, index + 1, partial)) {
+                return false;
+            }
+        }
+        if (!partial) {
+            for (int level = gcd; level < capacity; level += gcd) {
+                levels[index] = level;
+                if (!addGoals(goals, levels, gcd, goalBucket, index + 1, true)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether bucket levels, with the levels of one or two buckets changed, could be reached from empty
+     * buckets: every level a multiple of the gcd and at most one bucket partly filled.
+     *
+     * @param levels amount of water in each bucket
+     * @param gcd gcd of the capacities
+     * @param first index of the first bucket to change, or -1 if none changes
+     * @param firstLevel new amount of water in that bucket
+     * @param second index of the second bucket to change, or -1 if at most one changes
+     * @param secondLevel new amount of water in that bucket
+     * @return true if the levels could be reached, else false
+     */
+    private boolean fits(int[] levels, int gcd, int first, int firstLevel, int second, int secondLevel) {
+        int partial = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            int level = i == first ? firstLevel : i == second ? secondLevel : levels[i];
+            if (gcd > 0 && level % gcd != 0) {
+                return false;
+            }
+            if (level > 0 && level < buckets[i].getCapacity()) {
+                partial++;
+            }
+        }
+        return partial <= 1;
+    }
+
+    /**
+     * Finds the gcd of the capacities of all the buckets
+     *
+     * @return the gcd, or 0 if every capacity is 0
+     */
+    private int capacityGcd() {
+        int gcd = 0;
+        for (Bucket b: buckets) {
+            gcd = gcd(gcd, b.getCapacity());
+        }
+        return gcd;
+    }
+
+    /**
+     * Undoes every fill, dump and pour that could have led to this config, creating one WaterConfig for each
+     * way it could have been reached, leaving out those that couldn't have been reached from empty buckets
+     * themselves.
+     *
+     * @return predecessors of this config
+     */
+    @Override
+    public ArrayList<Config> getPredecessors() {
+        ArrayList<Config> configs = new ArrayList<>();
+        int[] levels = getLevels();
+        int gcd = capacityGcd();
+        for (int i = 0; i < buckets.length; i++) {
+            int capacity = buckets[i].getCapacity();
+            if (levels[i] == capacity) { //bucket i was just filled
+                for (int level = 0; level < capacity; level++) {
+                    if (fits(levels, gcd, i, level, -1, 0)) {
+                        configs.add(new WaterConfig(this, i, level, -1, 0));
+                    }
+                }
+            }
+            if (levels[i] == 0) { //bucket i was just dumped
+                for (int level = 1; level <= capacity; level++) {
+                    if (fits(levels, gcd, i, level, -1, 0)) {
+                        configs.add(new WaterConfig(this, i, level, -1, 0));
+                    }
+                }
+            }
+            for (int e = 0; e < buckets.length; e++) {
+                if (i == e) {
+                    continue;
+                }
+                if (levels[i] == 0) { //bucket i was emptied into bucket e
+                    for (int amount = 1; amount <= Math.min(levels[e], capacity); amount++) {
+                        if (fits(levels, gcd, i, amount, e, levels[e] - amount)) {
+                            configs.add(new WaterConfig(this, i, amount, e, levels[e] - amount));
+                        }
+                    }
+                }
+                if (levels[e] == buckets[e].getCapacity() && levels[i] > 0) { //bucket i filled up bucket e
+                    int most = Math.min(levels[e], capacity - levels[i]);
+                    for (int amount = 1; amount <= most; amount++) {
+                        if (fits(levels, gcd, i, levels[i] + amount, e, levels[e] - amount)) {
+                            configs.add(new WaterConfig(this, i, levels[i] + amount, e, levels[e] - amount));
+                        }
                     }
                 }
             }
@@ -76,6 +337,146 @@ public class WaterConfig implements Config{
         return configs;
     }
 
+    /**
+     * Creates a WaterConfig with the same goal and capacities as this one and the given bucket levels.
+     *
+     * @param levels amount of water in each bucket
+     * @return new WaterConfig
+     */
+    WaterConfig withLevels(int[] levels) {
+        return new WaterConfig(this, levels);
+    }
+
+    /**
+     * Accesses the amount of water the puzzle asks for
+     *
+     * @return goal amount
+     */
+    int getGoal() {
+        return goal;
+    }
+
+    /**
+     * Accesses the capacity of each bucket
+     *
+     * @return capacities
+     */
+    int[] getCapacities() {
+        int[] capacities = new int[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            capacities[i] = buckets[i].getCapacity();
+        }
+        return capacities;
+    }
+
+    /**
+     * Accesses the amount of water in each bucket
+     *
+     * @return levels
+     */
+    int[] getLevels() {
+        int[] levels = new int[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            levels[i] = buckets[i].getCurrent();
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the number of bits needed to hold every level from 0 to the capacity of a bucket
+     *
+     * @param capacity capacity of the bucket
+     * @return number of bits
+     */
+    private static int bits(int capacity) {
+        return 32 - Integer.numberOfLeadingZeros(capacity);
+    }
+
+    /**
+     * Checks whether the levels of all the buckets fit in a long together
+     *
+     * @return true if they fit, else false
+     */
+    @Override
+    public boolean hasKey() {
+        int total = 0;
+        for (Bucket b: buckets) {
+            total += bits(b.getCapacity());
+        }
+        return total <= 64;
+    }
+
+    /**
+     * Packs the level of each bucket into the key, the first bucket in the highest bits
+     *
+     * @return key
+     */
+    @Override
+    public long getKey() {
+        long key = 0;
+        for (Bucket b: buckets) {
+            key = (key << bits(b.getCapacity())) | b.getCurrent();
+        }
+        return key;
+    }
+
+    /**
+     * Creates the config of these buckets with the levels packed in the key
+     *
+     * @param key packed bucket levels
+     * @return the config
+     */
+    @Override
+    public Config fromKey(long key) {
+        int[] levels = new int[buckets.length];
+        for (int i = buckets.length - 1; i >= 0; i--) {
+            int bits = bits(buckets[i].getCapacity());
+            levels[i] = (int) (key & ((1L << bits) - 1));
+            key >>>= bits;
+        }
+        return withLevels(levels);
+    }
+
+    /**
+     * Estimates 0 moves if a bucket holds the goal amount. Otherwise the goal is unreachable if it is more than
+     * the largest capacity or not a multiple of the gcd of the capacities, and at least one more move is needed
+     * if it isn't.
+     *
+     * @return 0, 1 or UNREACHABLE
+     */
+    @Override
+    public int estimate() {
+        if (isSolution()) {
+            return 0;
+        }
+        int gcd = 0;
+        int largest = 0;
+        for (Bucket b: buckets) {
+            gcd = gcd(gcd, b.getCapacity());
+            largest = Math.max(largest, b.getCapacity());
+        }
+        if (goal > largest || gcd == 0 || goal % gcd != 0) {
+            return UNREACHABLE;
+        }
+        return 1;
+    }
+
+    /**
+     * Finds the greatest common divisor of two numbers with Euclid's algorithm
+     *
+     * @param a first number
+     * @param b second number
+     * @return gcd of a and b
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
     /**
      * Checks whether the current configuration is the goal configuration
      *
@@ -92,17 +493,23 @@ public class WaterConfig implements Config{
     }
 
     /**
-     * Creates an integer representing the current config
+     * Returns the Zobrist hash worked out when the config was created
+     *
+     * @return hash
+     */
+    @Override
+    public long getHash() {
+        return zobrist;
+    }
+
+    /**
+     * Returns the Zobrist hash worked out when the config was created, folded into an int
      *
      * @return appropriate int
      */
     @Override
     public int hashCode() {
-        int[] currents = new int[buckets.length];
-        for (int i = 0; i < buckets.length; i++) {
-            currents[i] = buckets[i].getCurrent();
-        }
-        return Arrays.hashCode(currents);
+        return (int) (zobrist ^ (zobrist >>> 32));
     }
 
     /**
@@ -114,6 +521,9 @@ public class WaterConfig implements Config{
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof WaterConfig) {
+            if (zobrist != ((WaterConfig) obj).zobrist) {
+                return false;
+            }
             for (int i = 0; i < buckets.length; i++) {
                 if (!this.buckets[i].equals(((WaterConfig)obj).buckets[i])) {
                     return false;
@@ -133,14 +543,24 @@ public class WaterConfig implements Config{
      */
     @Override
     public Object necessary() {
-        String step = "[";
+        return PathWriter.toString(this);
+    }
+
+    /**
+     * Writes the current amount in each bucket, as [a, b, c]
+     *
+     * @param out where the amounts are written
+     * @throws IOException if they can't be written
+     */
+    @Override
+    public void render(Appendable out) throws IOException {
+        out.append("[");
         for (int i = 0; i < buckets.length; i++) {
-            step += buckets[i].getCurrent();
+            out.append(Integer.toString(buckets[i].getCurrent()));
             if (i + 1 < buckets.length) {
-                step += ", ";
+                out.append(", ");
             }
         }
-        step += "]";
-        return step;
+        out.append("]");
     }
 }
@@ -0,0 +1,180 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+
+/**
+ * Solves the Water puzzle with number theory where it can, instead of a BFS over every combination of bucket
+ * levels. Every amount a bucket can ever hold is a multiple of the gcd of the capacities and no more than the
+ * largest capacity, so a goal that isn't one of those has no solution, which is known without any search. With
+ * two empty buckets, a shortest solution is found by only ever filling one bucket, pouring it into the other and
+ * dumping the other when it is full, so both ways round are simulated and the shorter one is kept, which takes a
+ * number of steps proportional to the capacities over the gcd rather than their product. Any other puzzle falls
+ * back to a BFS, through the SolutionStore so a stored solution is used if there is one.
+ *
+ * Without a search the only configs created are the starting config and the ones along the path, so the config
+ * counts are just the length of the path, or 1 if there is no solution. The moves simulated to pick the shorter
+ * way round aren't configs and aren't counted.
+ *
+ * @author Jose Estevez
+ */
+public class WaterSolver {
+    private WaterConfig config;
+    private long totalConfigs;
+    private long uniqueConfigs;
+    private boolean searched;
+
+    /**
+     * Constructs the WaterSolver.
+     *
+     * @param config the config used to solve the puzzle
+     */
+    public WaterSolver(WaterConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Solves the puzzle, without a search if the goal can't be reached, is the capacity of a bucket, or there are
+     * two empty buckets.
+     *
+     * @return the path if one is found, null otherwise
+     */
+    public ArrayList<Config> solve() {
+        totalConfigs = 1;
+        uniqueConfigs = 1;
+        searched = false;
+        ArrayList<Config> path = new ArrayList<>();
+        path.add(config);
+        if (config.isSolution()) {
+            return path;
+        }
+        if (config.estimate() == HeuristicConfig.UNREACHABLE) {
+            return null;
+        }
+        int goal = config.getGoal();
+        int[] capacities = config.getCapacities();
+        boolean empty = true;
+        for (int level: config.getLevels()) {
+            empty = empty && level == 0;
+        }
+        if (empty) {
+            for (int i = 0; i < capacities.length; i++) {
+                if (capacities[i] == goal) {
+                    int[] levels = new int[capacities.length];
+                    levels[i] = goal;
+                    path.add(config.withLevels(levels));
+                    totalConfigs++;
+                    uniqueConfigs++;
+                    return path;
+                }
+            }
+            if (capacities.length == 2) {
+                long forwards = pourBetween(0, 1, capacities, goal, null);
+                long backwards = pourBetween(1, 0, capacities, goal, null);
+                if (forwards >= 0 || backwards >= 0) {
+                    if (backwards < 0 || (forwards >= 0 && forwards <= backwards)) {
+                        pourBetween(0, 1, capacities, goal, path);
+                    }
+                    else {
+                        pourBetween(1, 0, capacities, goal, path);
+                    }
+                    totalConfigs = path.size();
+                    uniqueConfigs = path.size();
+                    return path;
+                }
+            }
+        }
+        searched = true;
+        StringBuilder puzzle = new StringBuilder("water ").append(goal);
+        for (int capacity: capacities) {
+            puzzle.append(" ").append(capacity);
+        }
+        Solution solution = SolutionStore.solve(puzzle.toString(), config);
+        totalConfigs = solution.getTotalConfigs();
+        uniqueConfigs = solution.getUniqueConfigs();
+        return solution.getPath();
+    }
+
+    /**
+     * Simulates filling one of two empty buckets whenever it is empty, dumping the other whenever it is full, and
+     * otherwise pouring the first into the other, until a bucket holds the goal. The levels repeat after at most
+     * two moves for every multiple of the gcd up to the sum of the capacities, so the simulation gives up then.
+     * Both ways round are counted first and only the shorter one is turned into configs.
+     *
+     * @param from index of the bucket that is filled
+     * @param to index of the bucket that is dumped
+     * @param capacities capacities of the two buckets
+     * @param goal goal amount
+     * @param path list the config after each move is added to, or null to only count the moves
+     * @return number of moves, or -1 if no bucket ever holds the goal
+     */
+    private long pourBetween(int from, int to, int[] capacities, int goal, ArrayList<Config> path) {
+        int[] levels = new int[2];
+        int gcd = Math.max(gcd(capacities[0], capacities[1]), 1);
+        long most = 2L * ((long) capacities[0] + capacities[1]) / gcd + 2;
+        long moves = 0;
+        while (levels[from] != goal && levels[to] != goal) {
+            if (moves > most) {
+                return -1;
+            }
+            if (levels[from] == 0) {
+                levels[from] = capacities[from];
+            }
+            else if (levels[to] == capacities[to]) {
+                levels[to] = 0;
+            }
+            else {
+                int amount = Math.min(levels[from], capacities[to] - levels[to]);
+                levels[from] -= amount;
+                levels[to] += amount;
+            }
+            moves++;
+            if (path != null) {
+                path.add(config.withLevels(levels));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Finds the greatest common divisor of two numbers with Euclid's algorithm
+     *
+     * @param a first number
+     * @param b second number
+     * @return gcd of a and b
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * Checks whether the puzzle needed a BFS, rather than being solved by number theory alone
+     *
+     * @return true if a search was run, else false
+     */
+    public boolean isSearched() {
+        return searched;
+    }
+
+    /**
+     * Accesses the total amount of configs created by the solver
+     *
+     * @return total configs
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Accesses the amount of unique configs created by the solver
+     *
+     * @return unique configs
+     */
+    public long getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+}
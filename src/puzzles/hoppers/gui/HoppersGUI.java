@@ -1,5 +1,6 @@
 package puzzles.hoppers.gui;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -14,6 +15,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import puzzles.common.Observer;
 import puzzles.hoppers.model.HoppersClientData;
+import puzzles.hoppers.model.HoppersLoader;
 import puzzles.hoppers.model.HoppersModel;
 
 import java.io.*;
@@ -42,29 +44,16 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, Ho
     private Stage stage;
 
     /**
-     * reads a file, creates a model and passes contents of file to model, then adds this GUI as
+     * reads a file, creates a model from the config in the file, then adds this GUI as
      * an observer of the model
+     *
+     * @throws IOException if the file can't be read or isn't a valid Hoppers file
      */
-    public void init() {
+    public void init() throws IOException {
         String filename = getParameters().getRaw().get(0);
-        String input = "";
-        try(BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            line = reader.readLine();
-            String[] split1 = line.split(" ");
-            for (int e = 0; e < split1.length; e++) {
-                input += split1[e] + "/";
-            }
-            while ((line = reader.readLine()) != (null)) {
-                String[] split = line.split(" ");
-                for (int i = 0; i < split.length; i++) {
-                    input += split[i];
-                }
-            }
-            System.out.println("Loaded: " + filename);
-        }
-        catch (IOException e) {}
-        model = new HoppersModel(input);
+        model = new HoppersModel(HoppersLoader.load(Paths.get(filename)));
+        System.out.println("Loaded: " + filename);
+        model.setNotifier(Platform::runLater);
         model.addObserver(this);
         message = new Text("Loaded: " + filename);
     }
@@ -88,7 +77,7 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, Ho
                 fileChooser.setInitialDirectory(new File(currentPath));
                 File file = fileChooser.showOpenDialog(stage);
                 if (file != null) {
-                    model.load("data/hoppers/" + file.getName());
+                    model.load(file.getPath());
                 }
             }
         });
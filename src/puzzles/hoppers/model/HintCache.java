@@ -0,0 +1,132 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the configs HoppersModel has solved, so a hint for a config that lies on a path solved before is a
+ * single lookup instead of a new search. Each config on a solved path is mapped to the next config of the path and
+ * how many moves are left from it, and a config with no solution is mapped to no next config. When the cache is
+ * full the least recently used config is forgotten. The cache is shared by every model, so it survives resets and
+ * loading the same file again, and its methods are synchronized since hints can be worked out off the UI thread.
+ *
+ * Jose Estevez
+ */
+class HintCache {
+    /** the most configs remembered before the least recently used one is forgotten */
+    private static final int CAPACITY = 1 << 16;
+
+    /** the cache shared by every HoppersModel */
+    private static final HintCache SHARED = new HintCache(CAPACITY);
+
+    private final LinkedHashMap<HoppersConfig, Hint> hints;
+
+    /**
+     * Constructs an empty cache
+     *
+     * @param capacity the most configs remembered
+     */
+    private HintCache(int capacity) {
+        hints = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<HoppersConfig, Hint> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by every HoppersModel
+     *
+     * @return shared cache
+     */
+    static HintCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Looks up the hint for a config
+     *
+     * @param config the config
+     * @return the hint, or null if the config hasn't been solved
+     */
+    synchronized Hint get(HoppersConfig config) {
+        return hints.get(config);
+    }
+
+    /**
+     * Remembers every config of a solved path, each with the config after it and the moves left from it
+     *
+     * @param path path from a config to the solution
+     * @return hint for the first config of the path
+     */
+    synchronized Hint putPath(ArrayList<Config> path) {
+        int last = path.size() - 1;
+        for (int i = 0; i < last; i++) {
+            hints.put((HoppersConfig) path.get(i), new Hint((HoppersConfig) path.get(i + 1), last - i));
+        }
+        hints.put((HoppersConfig) path.get(last), new Hint(null, 0));
+        return last == 0 ? new Hint(null, 0) : new Hint((HoppersConfig) path.get(1), last);
+    }
+
+    /**
+     * Remembers that a config has no solution
+     *
+     * @param config the config
+     * @return hint for the config
+     */
+    synchronized Hint putUnsolvable(HoppersConfig config) {
+        Hint hint = new Hint(null, -1);
+        hints.put(config, hint);
+        return hint;
+    }
+
+    /**
+     * The next move from a solved config and how far it is from the solution
+     */
+    static class Hint {
+        private final HoppersConfig next;
+        private final int distance;
+
+        /**
+         * Constructs a hint
+         *
+         * @param next the config after the move, or null if there is none
+         * @param distance moves left to the solution, or -1 if there is no solution
+         */
+        Hint(HoppersConfig next, int distance) {
+            this.next = next;
+            this.distance = distance;
+        }
+
+        /**
+         * Returns the config after the next move
+         *
+         * @return next config, or null if the config is solved or has no solution
+         */
+        HoppersConfig getNext() {
+            return next;
+        }
+
+        /**
+         * Returns the number of moves left to the solution
+         *
+         * @return moves left, or -1 if there is no solution
+         */
+        int getDistance() {
+            return distance;
+        }
+
+        /**
+         * Checks whether the config has a solution
+         *
+         * @return true if solvable, else false
+         */
+        boolean isSolvable() {
+            return distance >= 0;
+        }
+    }
+}
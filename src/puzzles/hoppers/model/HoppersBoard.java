@@ -0,0 +1,364 @@
+package puzzles.hoppers.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Represents the layout of a hoppers board: its size and which of its squares are lily pads a frog can sit on.
+ * Every lily pad gets a cell number so a HoppersConfig can keep its frogs in bit sets indexed by cell. A board is
+ * created for each puzzle that is read and shared by every config reached from it, so configs of one search
+ * compare boards by reference, and only compare layouts when the boards are different objects.
+ *
+ * When a board is created it also works out which of the mirror images (left to right, top to bottom, and both,
+ * which is the 180 degree rotation) map its lily pads and jumps onto themselves, so configs can be compared up to
+ * symmetry.
+ *
+ * Every jump a frog could make on the board is listed once, when the board is created, in a table of flat int
+ * arrays: the cell each jump goes over and the cell it lands on, grouped by the cell it starts from. Finding the
+ * jumps of a config is then a loop over the entries for each frog and two bit tests, with no coordinates or
+ * bounds checks.
+ *
+ * For Zobrist hashing it gives each lily pad a random number for a green frog and another for a red frog, from a
+ * fixed seed so the numbers are the same every run.
+ *
+ * It also sorts the lily pads into classes a frog can never leave: the cells a frog could reach from each other
+ * by jumping, if there were always a frog to jump over. A frog in one class can only ever be jumped by frogs of a
+ * few other classes, its capturer classes, which the board keeps for each cell. Once no frog is left in any
+ * capturer class of a green frog, that frog can never be removed, wherever it jumps to.
+ *
+ * Jose Estevez
+ */
+class HoppersBoard {
+    private final int rows;
+    private final int columns;
+    private final int[] cellOf;
+    private final int[] rowOf;
+    private final int[] columnOf;
+    private final int words;
+    private final int[][] symmetries;
+    private final int[] jumpStart;
+    private final int[] jumpOver;
+    private final int[] jumpTo;
+    private final long[] zobrist;
+    private final int[] classOf;
+    private final long[] capturers;
+
+    /**
+     * Constructs a board, numbering each lily pad from left to right and top to bottom
+     *
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param water true for each square, by row * columns + column, that is water
+     */
+    HoppersBoard(int rows, int columns, boolean[] water) {
+        this.rows = rows;
+        this.columns = columns;
+        cellOf = new int[rows * columns];
+        int cells = 0;
+        for (int i = 0; i < cellOf.length; i++) {
+            cellOf[i] = water[i] ? -1 : cells++;
+        }
+        rowOf = new int[cells];
+        columnOf = new int[cells];
+        for (int i = 0; i < cellOf.length; i++) {
+            if (cellOf[i] >= 0) {
+                rowOf[cellOf[i]] = i / columns;
+                columnOf[cellOf[i]] = i % columns;
+            }
+        }
+        words = (cells + 63) >>> 6;
+        ArrayList<int[]> found = new ArrayList<>();
+        addSymmetry(found, false, true);
+        addSymmetry(found, true, false);
+        addSymmetry(found, true, true);
+        symmetries = found.toArray(new int[0][]);
+        ArrayList<int[]> jumps = jumps();
+        jumpStart = new int[cells + 1];
+        jumpOver = new int[jumps.size()];
+        jumpTo = new int[jumps.size()];
+        for (int i = 0; i < jumps.size(); i++) {
+            jumpStart[jumps.get(i)[0] + 1]++;
+            jumpOver[i] = jumps.get(i)[1];
+            jumpTo[i] = jumps.get(i)[2];
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            jumpStart[cell + 1] += jumpStart[cell];
+        }
+        zobrist = new long[cells * 2];
+        SplittableRandom random = new SplittableRandom(cells);
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = random.nextLong();
+        }
+        classOf = new int[cells];
+        capturers = new long[cells];
+        findClasses(jumps);
+    }
+
+    /**
+     * Lists every jump a frog could make on an empty board of this layout, as the cell it jumps from, the cell
+     * it jumps over and the cell it lands on, in order of the cell it jumps from. A frog on an even row can jump
+     * four squares along its row or column, and any frog can jump two squares diagonally.
+     *
+     * @return the jumps, each as {from, over, to}
+     */
+    private ArrayList<int[]> jumps() {
+        int[][] steps = {{0, -2}, {-2, 0}, {2, 0}, {0, 2}, {-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+        ArrayList<int[]> jumps = new ArrayList<>();
+        for (int from = 0; from < rowOf.length; from++) {
+            for (int i = rowOf[from] % 2 == 0 ? 0 : 4; i < steps.length; i++) {
+                int over = cell(rowOf[from] + steps[i][0], columnOf[from] + steps[i][1]);
+                int to = cell(rowOf[from] + 2 * steps[i][0], columnOf[from] + 2 * steps[i][1]);
+                if (over >= 0 && to >= 0) {
+                    jumps.add(new int[]{from, over, to});
+                }
+            }
+        }
+        return jumps;
+    }
+
+    /**
+     * Sorts the cells into the groups joined by jumps and works out the capturer classes of each. If there
+     * are more groups than fit in the bits of a long, the coarser classes given by where a cell lies on the
+     * lattice of jumps are used instead, since no jump leaves those either.
+     *
+     * @param jumps every jump on the board, each as {from, over, to}
+     */
+    private void findClasses(ArrayList<int[]> jumps) {
+        int[] parent = new int[rowOf.length];
+        for (int cell = 0; cell < parent.length; cell++) {
+            parent[cell] = cell;
+        }
+        for (int[] jump: jumps) {
+            parent[root(parent, jump[0])] = root(parent, jump[2]);
+        }
+        int[] classOfRoot = new int[parent.length];
+        Arrays.fill(classOfRoot, -1);
+        int classes = 0;
+        for (int cell = 0; cell < parent.length; cell++) {
+            int root = root(parent, cell);
+            if (classOfRoot[root] < 0) {
+                classOfRoot[root] = classes++;
+            }
+            classOf[cell] = classOfRoot[root];
+        }
+        if (classes > 64) {
+            for (int cell = 0; cell < classOf.length; cell++) {
+                int row = rowOf[cell];
+                int column = columnOf[cell];
+                classOf[cell] = (row & 1) | (column & 1) << 1 | ((row >> 1) + (column >> 1) & 1) << 2;
+            }
+        }
+        long[] capturersOfClass = new long[64];
+        for (int[] jump: jumps) {
+            capturersOfClass[classOf[jump[1]]] |= 1L << classOf[jump[0]];
+        }
+        for (int cell = 0; cell < classOf.length; cell++) {
+            capturers[cell] = capturersOfClass[classOf[cell]];
+        }
+    }
+
+    /**
+     * Finds the root of the group a cell is in, shortening the path to it on the way
+     *
+     * @param parent parent of each cell, a root being its own parent
+     * @param cell the cell
+     * @return root of its group
+     */
+    private static int root(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Adds the mirror image of the board to the list of symmetries if it maps every lily pad onto a lily pad.
+     * Frogs on even rows can also jump along rows and columns, so flipping the rows only counts if it keeps even
+     * rows even, which is when there is an odd number of rows.
+     *
+     * @param found list of symmetries found so far, each mapping every cell to its image
+     * @param flipRows true to flip top to bottom
+     * @param flipColumns true to flip left to right
+     */
+    private void addSymmetry(ArrayList<int[]> found, boolean flipRows, boolean flipColumns) {
+        if (flipRows && rows % 2 == 0) {
+            return;
+        }
+        int[] image = new int[rowOf.length];
+        for (int cell = 0; cell < rowOf.length; cell++) {
+            int row = flipRows ? rows - 1 - rowOf[cell] : rowOf[cell];
+            int column = flipColumns ? columns - 1 - columnOf[cell] : columnOf[cell];
+            image[cell] = cell(row, column);
+            if (image[cell] < 0) {
+                return;
+            }
+        }
+        found.add(image);
+    }
+
+    /**
+     * Returns the cell number of the square at the given row and column
+     *
+     * @param row row of square
+     * @param column column of square
+     * @return cell number, or -1 if the square is water or off the board
+     */
+    int cell(int row, int column) {
+        if (row < 0 || column < 0 || row >= rows || column >= columns) {
+            return -1;
+        }
+        return cellOf[row * columns + column];
+    }
+
+    /**
+     * Returns the row of a cell
+     *
+     * @param cell cell number
+     * @return row
+     */
+    int row(int cell) {
+        return rowOf[cell];
+    }
+
+    /**
+     * Returns the column of a cell
+     *
+     * @param cell cell number
+     * @return column
+     */
+    int column(int cell) {
+        return columnOf[cell];
+    }
+
+    /**
+     * Returns the symmetries of the board other than leaving it as it is, each as an array giving the image of
+     * every cell
+     *
+     * @return cell maps of the symmetries
+     */
+    int[][] getSymmetries() {
+        return symmetries;
+    }
+
+    /**
+     * Returns the index in the jump table of the first jump from a cell. The jumps from a cell run up to the
+     * first jump from the next cell, so jumpStart(cell + 1) ends them.
+     *
+     * @param cell cell number, or the number of cells for the end of the table
+     * @return index of the first jump
+     */
+    int jumpStart(int cell) {
+        return jumpStart[cell];
+    }
+
+    /**
+     * Returns the cell each jump in the jump table goes over
+     *
+     * @return cells jumped over, by index in the table
+     */
+    int[] getJumpOver() {
+        return jumpOver;
+    }
+
+    /**
+     * Returns the cell each jump in the jump table lands on
+     *
+     * @return cells landed on, by index in the table
+     */
+    int[] getJumpTo() {
+        return jumpTo;
+    }
+
+    /**
+     * Returns the Zobrist numbers of the board: the number for a green frog on each cell, followed by the number
+     * for a red frog on each cell
+     *
+     * @return Zobrist numbers, by cell for green frogs and by cells + cell for red frogs
+     */
+    long[] getZobrist() {
+        return zobrist;
+    }
+
+    /**
+     * Returns the class of a cell, which a frog on it never leaves
+     *
+     * @param cell cell number
+     * @return class, from 0 to 63
+     */
+    int classOf(int cell) {
+        return classOf[cell];
+    }
+
+    /**
+     * Returns the classes of the frogs that could ever jump over a frog in the class of a cell, one bit per class
+     *
+     * @param cell cell number
+     * @return capturer classes
+     */
+    long capturers(int cell) {
+        return capturers[cell];
+    }
+
+    /**
+     * Returns number of lily pads on the board
+     *
+     * @return number of cells
+     */
+    int getCells() {
+        return rowOf.length;
+    }
+
+    /**
+     * Returns the number of longs needed to hold one bit for each cell
+     *
+     * @return number of words
+     */
+    int getWords() {
+        return words;
+    }
+
+    /**
+     * Returns number of rows on the board
+     *
+     * @return number of rows
+     */
+    int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns number of columns on the board
+     *
+     * @return number of columns
+     */
+    int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Creates an integer representing the layout
+     *
+     * @return appropriate int
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + columns) + Arrays.hashCode(cellOf);
+    }
+
+    /**
+     * Checks whether this board has the same layout as another board
+     *
+     * @param obj the other board
+     * @return true if same layout, else false
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof HoppersBoard) {
+            HoppersBoard other = (HoppersBoard) obj;
+            return rows == other.rows && columns == other.columns && Arrays.equals(cellOf, other.cellOf);
+        }
+        return false;
+    }
+}
@@ -1,55 +1,116 @@
 package puzzles.hoppers.model;
 
 import puzzles.common.solver.Config;
+import puzzles.common.solver.HashedConfig;
+import puzzles.common.solver.HeuristicConfig;
+import puzzles.common.solver.KeyedConfig;
+import puzzles.common.solver.PathWriter;
+import puzzles.common.solver.SymmetricConfig;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.function.Consumer;
 
 /**
- * Represents a hopper config. Implements Config interface and all required methods. Holds a board of chars, the number of
- * rows and columns, and the number of green frogs remaining.
+ * Represents a hopper config. Implements Config interface and all required methods. Holds the board layout, the
+ * frogs packed into bit sets with one bit per lily pad, and the number of green frogs remaining. The first half of
+ * the frogs array holds a bit for each cell with a green frog, the second half one for each cell with a red frog.
+ * On boards with at most 32 lily pads both halves fit in the low and high half of a single long key. Every jump
+ * removes exactly one green frog, so the number of green frogs left is the estimate of the moves left. Mirror
+ * images of a config on a symmetric board share a canonical form, the image whose frogs array comes first. The
+ * hash is a Zobrist hash of the frogs, worked out when the config is created, and a jump just xors the numbers of
+ * the three cells it changes in and out. The whole 64 bits are handed out as a HashedConfig, which is
+ * what DepthFirstSolver keeps of boards too large for a key.
  *
  * Jose Estevez
  */
-public class HoppersConfig implements Config {
-    private char[][] board;
-    private int rows;
-    private int columns;
+public class HoppersConfig implements KeyedConfig, HeuristicConfig, SymmetricConfig, HashedConfig {
+    private HoppersBoard board;
+    private long[] frogs;
     private int numG = 0;
+    private final long zobrist;
 
     /**
-     * Constructs a hopper config, using the contents of the file to create the grid of chars, num of rows, columns, and
-     * green frogs
+     * Constructs a hopper config, using the contents of the file to create the board layout and place the frogs,
+     * counting the green frogs
      *
      * @param input contents of file
      */
     public HoppersConfig(String input) {
-        int iter = 0;
-        String row = "";
-        while (input.charAt(iter) != "/".charAt(0)) {
-            row += input.charAt(iter);
-            iter++;
+        int rowEnd = input.indexOf("/");
+        int columnEnd = input.indexOf("/", rowEnd + 1);
+        int rows = Integer.parseInt(input.substring(0, rowEnd));
+        int columns = Integer.parseInt(input.substring(rowEnd + 1, columnEnd));
+        int iter = columnEnd + 1;
+        boolean[] water = new boolean[rows * columns];
+        for (int i = 0; i < water.length; i++) {
+            water[i] = input.charAt(iter + i) == "*".charAt(0);
         }
-        rows = Integer.parseInt(row);
-        String column = "";
-        iter++;
-        while (input.charAt(iter) != "/".charAt(0)) {
-            column += input.charAt(iter);
-            iter++;
-        }
-        columns = Integer.parseInt(column);
-        iter++;
-        board = new char[rows][columns];
-        //int index = 2;
+        board = new HoppersBoard(rows, columns, water);
+        frogs = new long[board.getWords() * 2];
         for (int i = 0; i < rows; i++) {
             for (int e = 0; e < columns; e++) {
-                board[i][e] = input.charAt(iter);
-                if (input.charAt(iter) == "G".charAt(0)) {
+                char piece = input.charAt(iter);
+                if (piece == "G".charAt(0) || piece == "R".charAt(0)) {
+                    set(board.cell(i, e), piece);
+                }
+                if (piece == "G".charAt(0)) {
                     numG++;
                 }
                 iter++;
             }
         }
+        zobrist = hashFrogs();
+    }
+
+    /**
+     * Constructs a hopper config from a board and the bit sets of its frogs, counting the green frogs
+     *
+     * @param board the board layout
+     * @param frogs green frog bits followed by red frog bits, one word per 64 cells each
+     */
+    HoppersConfig(HoppersBoard board, long[] frogs) {
+        this.board = board;
+        this.frogs = frogs;
+        for (int i = 0; i < board.getWords(); i++) {
+            numG += Long.bitCount(frogs[i]);
+        }
+        zobrist = hashFrogs();
+    }
+
+    /**
+     * Constructs a hopper config from bit sets of frogs whose green frogs have already been counted and hash
+     * already worked out
+     *
+     * @param board the board layout
+     * @param frogs green frog bits followed by red frog bits
+     * @param numG number of green frogs
+     * @param zobrist Zobrist hash of the frogs
+     */
+    private HoppersConfig(HoppersBoard board, long[] frogs, int numG, long zobrist) {
+        this.board = board;
+        this.frogs = frogs;
+        this.numG = numG;
+        this.zobrist = zobrist;
+    }
+
+    /**
+     * Works out the Zobrist hash of the frogs from scratch, the xor of the board's number for each frog
+     *
+     * @return the hash
+     */
+    private long hashFrogs() {
+        long[] numbers = board.getZobrist();
+        int words = board.getWords();
+        long hash = 0;
+        for (int word = 0; word < words * 2; word++) {
+            for (long bits = frogs[word]; bits != 0; bits &= bits - 1) {
+                int cell = (word % words) << 6 | Long.numberOfTrailingZeros(bits);
+                hash ^= numbers[word < words ? cell : board.getCells() + cell];
+            }
+        }
+        return hash;
     }
 
     /**
@@ -58,15 +119,46 @@ public class HoppersConfig implements Config {
      * @param config config being copied
      */
     public HoppersConfig(HoppersConfig config) {
-        rows = config.rows;
-        columns = config.columns;
-        board = new char[rows][columns];
-        numG = 0;
-        for (int i = 0; i < config.numG; i++) {
-            numG++;
+        board = config.board;
+        frogs = config.frogs.clone();
+        numG = config.numG;
+        zobrist = config.zobrist;
+    }
+
+    /**
+     * Returns what is on a cell: a green frog, a red frog or an empty lily pad
+     *
+     * @param cell cell number
+     * @return G, R or .
+     */
+    private char at(int cell) {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        if ((frogs[word] & bit) != 0) {
+            return "G".charAt(0);
         }
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(config.board[i], 0, board[i], 0, columns);
+        if ((frogs[board.getWords() + word] & bit) != 0) {
+            return "R".charAt(0);
+        }
+        return ".".charAt(0);
+    }
+
+    /**
+     * Puts a green frog, a red frog or nothing on a cell
+     *
+     * @param cell cell number
+     * @param piece G, R or .
+     */
+    private void set(int cell, char piece) {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        frogs[word] &= ~bit;
+        frogs[board.getWords() + word] &= ~bit;
+        if (piece == "G".charAt(0)) {
+            frogs[word] |= bit;
+        }
+        if (piece == "R".charAt(0)) {
+            frogs[board.getWords() + word] |= bit;
         }
     }
 
@@ -81,118 +173,176 @@ public class HoppersConfig implements Config {
      */
     private ArrayList<Config> frogJump(int row, int column, char frog) {
         ArrayList<Config> possibleJumps = new ArrayList<>();
-        if (row % 2 == 0) { //Frog at even coordinates
-            if (column - 4 >= 0 && board[row][column-4] == ".".charAt(0)) { //jumping to [row][column-4]
-                if (board[row][column-2] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row][column-2] = ".".charAt(0);
-                    config.board[row][column-4] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
-                }
-            }
-            if (row - 4 >= 0 && board[row-4][column] == ".".charAt(0)) { //Jumping to [row-4][column]
-                if (board[row-2][column] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row-2][column] = ".".charAt(0);
-                    config.board[row-4][column] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
-                }
-            }
-            if (row + 4 <= rows-1 && board[row+4][column] == ".".charAt(0)) { //Jumping to [row+4][column]
-                if (board[row+2][column] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row+2][column] = ".".charAt(0);
-                    config.board[row+4][column] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
-                }
-            }
-            if (column + 4 <= columns-1 && board[row][column+4] == ".".charAt(0)) { //jumping to [row][column+4]
-                if (board[row][column+2] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row][column+2] = ".".charAt(0);
-                    config.board[row][column+4] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
-                }
-            }
+        int cell = board.cell(row, column);
+        if (cell >= 0 && at(cell) == frog) {
+            frogJump(cell, frog == "G".charAt(0), possibleJumps::add, false);
         }
-        if (column - 2 >= 0) { //jumping to [row-2][column-2] and [row+2][column-2]
-            if (row - 2 >= 0 && board[row-2][column-2] == ".".charAt(0)) { //[row-2][column-2]
-                if (board[row-1][column-1] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row-1][column-1] = ".".charAt(0);
-                    config.board[row-2][column-2] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
+        return possibleJumps;
+    }
+
+    /**
+     * Goes through the jumps from a cell in the board's jump table, and for each one over a green frog onto an
+     * empty lily pad hands a HoppersConfig for said jump to the consumer. The new frogs are worked out from a copy
+     * of the bit sets with three bit changes.
+     *
+     * @param from cell of the frog
+     * @param green true if the frog is green, false if it is red
+     * @param possibleJumps consumer each jump is handed to
+     * @param pruned true to leave out jumps that make the puzzle dead
+     */
+    private void frogJump(int from, boolean green, Consumer<Config> possibleJumps, boolean pruned) {
+        int words = board.getWords();
+        int[] jumpOver = board.getJumpOver();
+        int[] jumpTo = board.getJumpTo();
+        int side = green ? 0 : words;
+        long[] numbers = board.getZobrist();
+        int numbersSide = green ? 0 : board.getCells();
+        for (int jump = board.jumpStart(from); jump < board.jumpStart(from + 1); jump++) {
+            int over = jumpOver[jump];
+            int to = jumpTo[jump];
+            if ((frogs[over >>> 6] & 1L << over) != 0
+                    && ((frogs[to >>> 6] | frogs[words + (to >>> 6)]) & 1L << to) == 0) {
+                long[] jumped = frogs.clone();
+                jumped[side + (from >>> 6)] &= ~(1L << from);
+                jumped[over >>> 6] &= ~(1L << over);
+                jumped[side + (to >>> 6)] |= 1L << to;
+                long hash = zobrist ^ numbers[numbersSide + from] ^ numbers[over] ^ numbers[numbersSide + to];
+                HoppersConfig config = new HoppersConfig(board, jumped, numG - 1, hash);
+                if (!pruned || !config.isDead()) {
+                    possibleJumps.accept(config);
                 }
             }
-            if (row + 2 <= rows-1 && board[row+2][column-2] == ".".charAt(0)) { //[row+2][column-2]
-                if (board[row+1][column-1] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row+1][column-1] = ".".charAt(0);
-                    config.board[row+2][column-2] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
-                }
+        }
+    }
+
+    /**
+     * Creates an ArrayList of HopperConfigs, with each frog jumping to all valid jump locations.
+     *
+     * @return ArrayList of HopperConfigs
+     */
+    @Override
+    public ArrayList<Config> getNeighbors() {
+        ArrayList<Config> neighbors = new ArrayList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Hands a HopperConfig for each frog jumping to each valid jump location straight to the consumer, without
+     * gathering them in a list or copying the board for each frog first. The frogs are found from the set bits of
+     * the frog bit sets and their jumps from the board's jump table. Jumps that leave the puzzle dead are
+     * dropped, so a search never stores or expands them.
+     *
+     * @param consumer consumer each neighbor is handed to
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Config> consumer) {
+        int words = board.getWords();
+        for (int word = 0; word < words; word++) {
+            for (long bits = frogs[word] | frogs[words + word]; bits != 0; bits &= bits - 1) {
+                int cell = word << 6 | Long.numberOfTrailingZeros(bits);
+                frogJump(cell, (frogs[word] & 1L << cell) != 0, consumer, true);
             }
         }
-        if (column + 2 <= columns-1) { //jumping to [row-2][column+2] and [row+2][column+2]
-            if (row - 2 >= 0 && board[row-2][column+2] == ".".charAt(0)) { //[row-2][column+2]
-                if (board[row-1][column+1] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row-1][column+1] = ".".charAt(0);
-                    config.board[row-2][column+2] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
-                }
+    }
+
+    /**
+     * Checks whether the puzzle can no longer be solved because some green frog can never be jumped: no frog is
+     * left in any of the classes of the board whose frogs could ever jump a frog of its class. Frogs never change
+     * class, so such a config stays dead whatever moves are made. A config that passes isn't always solvable.
+     *
+     * @return true if the config is dead, else false
+     */
+    boolean isDead() {
+        int words = board.getWords();
+        long classes = 0;
+        for (int word = 0; word < words * 2; word++) {
+            for (long bits = frogs[word]; bits != 0; bits &= bits - 1) {
+                classes |= 1L << board.classOf((word % words) << 6 | Long.numberOfTrailingZeros(bits));
             }
-            if (row + 2 <= rows-1 && board[row+2][column+2] == ".".charAt(0)) { //[row+2][column+2]
-                if (board[row+1][column+1] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    config.board[row][column] = ".".charAt(0);
-                    config.board[row+1][column+1] = ".".charAt(0);
-                    config.board[row+2][column+2] = frog;
-                    config.numG--;
-                    possibleJumps.add(config);
+        }
+        for (int word = 0; word < words; word++) {
+            for (long bits = frogs[word]; bits != 0; bits &= bits - 1) {
+                if ((board.capturers(word << 6 | Long.numberOfTrailingZeros(bits)) & classes) == 0) {
+                    return true;
                 }
             }
         }
-        return possibleJumps;
+        return false;
     }
 
     /**
-     * Creates an ArrayList of HopperConfigs, with each frog jumping to all valid jump locations.
+     * Checks whether the board is small enough for the green and red bit sets to share a long
      *
-     * @return ArrayList of HopperConfigs
+     * @return true if the board has at most 32 lily pads, else false
      */
     @Override
-    public ArrayList<Config> getNeighbors() {
-        ArrayList<Config> neighbors = new ArrayList<>();
-        for (int i = 0; i < rows; i++) {
-            for (int e = 0; e < columns; e++) {
-                if (board[i][e] == "G".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    ArrayList<Config> jumps = config.frogJump(i,e, "G".charAt(0));
-                    neighbors.addAll(jumps);
+    public boolean hasKey() {
+        return board.getCells() <= 32;
+    }
+
+    /**
+     * Packs the green frogs into the low half of the key and the red frogs into the high half
+     *
+     * @return key
+     */
+    @Override
+    public long getKey() {
+        return frogs[0] | (frogs[1] << 32);
+    }
+
+    /**
+     * Creates the config of this board with the frogs packed in the key
+     *
+     * @param key packed frogs
+     * @return the config
+     */
+    @Override
+    public Config fromKey(long key) {
+        return new HoppersConfig(board, new long[]{key & 0xFFFFFFFFL, key >>> 32});
+    }
+
+    /**
+     * Returns the number of green frogs left, since each jump removes exactly one of them
+     *
+     * @return moves left
+     */
+    @Override
+    public int estimate() {
+        return numG;
+    }
+
+    /**
+     * Returns whichever of this config and its mirror images under the symmetries of the board has the frogs
+     * array that comes first, so all of them have the same canonical form
+     *
+     * @return canonical form of this config
+     */
+    @Override
+    public Config canonical() {
+        long[] best = frogs;
+        int words = board.getWords();
+        for (int[] image: board.getSymmetries()) {
+            long[] mirrored = new long[frogs.length];
+            for (int cell = 0; cell < board.getCells(); cell++) {
+                int word = cell >>> 6;
+                long bit = 1L << cell;
+                long to = 1L << image[cell];
+                if ((frogs[word] & bit) != 0) {
+                    mirrored[image[cell] >>> 6] |= to;
                 }
-                if (board[i][e] == "R".charAt(0)) {
-                    HoppersConfig config = new HoppersConfig(this);
-                    ArrayList<Config> jumps = config.frogJump(i,e, "R".charAt(0));
-                    neighbors.addAll(jumps);
+                if ((frogs[words + word] & bit) != 0) {
+                    mirrored[words + (image[cell] >>> 6)] |= to;
                 }
             }
+            if (Arrays.compare(mirrored, best) < 0) {
+                best = mirrored;
+            }
         }
-        return neighbors;
+        if (best == frogs) {
+            return this;
+        }
+        return new HoppersConfig(board, best);
     }
 
     /**
@@ -209,13 +359,23 @@ public class HoppersConfig implements Config {
     }
 
     /**
-     * Creates an integer representing the current config
+     * Returns the Zobrist hash worked out when the config was created
+     *
+     * @return hash
+     */
+    @Override
+    public long getHash() {
+        return zobrist;
+    }
+
+    /**
+     * Returns the Zobrist hash worked out when the config was created, folded into an int
      *
      * @return appropriate int
      */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return (int) (zobrist ^ (zobrist >>> 32));
     }
 
     /**
@@ -226,8 +386,10 @@ public class HoppersConfig implements Config {
      */
     @Override
     public boolean equals(Object obj) {
-        if (Arrays.deepEquals(board, ((HoppersConfig)obj).board)) {
-            return true;
+        if (obj instanceof HoppersConfig) {
+            HoppersConfig other = (HoppersConfig) obj;
+            return zobrist == other.zobrist && Arrays.equals(frogs, other.frogs)
+                    && (board == other.board || board.equals(other.board));
         }
         return false;
     }
@@ -239,20 +401,31 @@ public class HoppersConfig implements Config {
      */
     @Override
     public Object necessary() {
-        String result = "" + "\n" + "  ";
-        for (int f = 0; f < columns; f++) {
-            result += " " + f;
+        return PathWriter.toString(this);
+    }
+
+    /**
+     * Writes the grid of chars of the Hopper puzzle, with the column numbers above it and the row numbers beside
+     * it, one char at a time
+     *
+     * @param out where the grid is written
+     * @throws IOException if it can't be written
+     */
+    @Override
+    public void render(Appendable out) throws IOException {
+        out.append("\n").append("  ");
+        for (int f = 0; f < board.getColumns(); f++) {
+            out.append(" ").append(Integer.toString(f));
         }
-        result += "\n" + " ";
-        result += " " + ("-".repeat(columns*2) + "\n");
-        for (int i = 0; i < rows; i++) {
-            result += i + "|";
-            for (int e = 0; e < columns; e++) {
-                result += " " + board[i][e];
+        out.append("\n").append(" ");
+        out.append(" ").append("-".repeat(board.getColumns()*2)).append("\n");
+        for (int i = 0; i < board.getRows(); i++) {
+            out.append(Integer.toString(i)).append("|");
+            for (int e = 0; e < board.getColumns(); e++) {
+                out.append(" ").append(get(i, e));
             }
-            result += "\n";
+            out.append("\n");
         }
-        return result;
     }
 
     /**
@@ -263,7 +436,11 @@ public class HoppersConfig implements Config {
      * @return char
      */
     public char get(int row, int column) {
-        return board[row][column];
+        int cell = board.cell(row, column);
+        if (cell < 0) {
+            return "*".charAt(0);
+        }
+        return at(cell);
     }
 
     /**
@@ -279,20 +456,46 @@ public class HoppersConfig implements Config {
     public HoppersConfig jump(int row1, int col1, int row2, int col2, char frog) {
         ArrayList<Config> validJumps = frogJump(row1, col1, frog);
         for (Config config: validJumps) {
-            if (((HoppersConfig)config).board[row2][col2] == frog) {
+            if (((HoppersConfig)config).get(row2, col2) == frog) {
                 return (HoppersConfig)config;
             }
         }
         return null;
     }
 
+    /**
+     * Returns the layout of the board, which is shared by every config reached from the same puzzle
+     *
+     * @return board
+     */
+    HoppersBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Describes the layout of the board without the frogs, as the number of rows and columns followed by a *
+     * for each square of water and a . for each lily pad
+     *
+     * @return layout of the board
+     */
+    public String getLayout() {
+        StringBuilder layout = new StringBuilder();
+        layout.append(board.getRows()).append("/").append(board.getColumns()).append("/");
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int e = 0; e < board.getColumns(); e++) {
+                layout.append(board.cell(i, e) < 0 ? "*" : ".");
+            }
+        }
+        return layout.toString();
+    }
+
     /**
      * Returns number of rows in char grid
      *
      * @return number of rows
      */
     public int getRows() {
-        return rows;
+        return board.getRows();
     }
 
     /**
@@ -301,6 +504,6 @@ public class HoppersConfig implements Config {
      * @return number of columns
      */
     public int getColumns() {
-        return columns;
+        return board.getColumns();
     }
 }
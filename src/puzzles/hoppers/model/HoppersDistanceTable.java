@@ -0,0 +1,238 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Config;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the distance to the solution of every config reachable from a starting config, worked out once by an
+ * exhaustive search so hints, dead ends and moves remaining are lookups afterwards. Every jump removes exactly one
+ * green frog, so the reachable configs split into layers by the number of green frogs left, and every move goes
+ * from one layer to the next. Each layer is kept as a sorted array of config keys with a byte per key holding its
+ * distance, which is the number of green frogs left if the config can still be solved and DEAD if it can't.
+ *
+ * The layers are found forwards from the starting config, then marked solvable backwards from the solved layer.
+ * Tables are only built for boards whose configs have keys, and the last few built are kept so loading the same
+ * file again reuses them. A build can be cancelled through a flag, which is checked before each config is
+ * expanded.
+ *
+ * Jose Estevez
+ */
+public class HoppersDistanceTable {
+    /** distance of a config the solution can't be reached from */
+    public static final int DEAD = -1;
+    /** distance of a config that isn't reachable from the starting config of the table */
+    public static final int UNKNOWN = -2;
+
+    /** the most tables kept for reuse */
+    private static final int KEPT_TABLES = 4;
+
+    /** the tables built most recently, by starting config */
+    private static final LinkedHashMap<HoppersConfig, HoppersDistanceTable> TABLES =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<HoppersConfig, HoppersDistanceTable> eldest) {
+                    return size() > KEPT_TABLES;
+                }
+            };
+
+    private final HoppersConfig start;
+    private final int startGreens;
+    private final long[][] layers;
+    private final byte[][] distances;
+    private final long states;
+
+    /**
+     * Constructs the table by searching every config reachable from the starting config. If the build is
+     * cancelled it stops part way, leaving a table that must not be used.
+     *
+     * @param start the starting config, which must have a key
+     * @param cancelled set to stop the build
+     */
+    private HoppersDistanceTable(HoppersConfig start, AtomicBoolean cancelled) {
+        this.start = start;
+        startGreens = start.estimate();
+        layers = new long[startGreens + 1][];
+        distances = new byte[startGreens + 1][];
+        layers[0] = new long[] {start.getKey()};
+        long found = 1;
+        int depth = 0;
+        while (depth < startGreens && layers[depth].length > 0) {
+            layers[depth + 1] = nextLayer(layers[depth], cancelled);
+            found += layers[depth + 1].length;
+            depth++;
+        }
+        for (int i = depth + 1; i <= startGreens; i++) {
+            layers[i] = new long[0];
+        }
+        states = found;
+        distances[startGreens] = new byte[layers[startGreens].length];
+        for (int i = startGreens - 1; i >= 0; i--) {
+            distances[i] = new byte[layers[i].length];
+            for (int e = 0; e < layers[i].length; e++) {
+                if (cancelled.get()) {
+                    return;
+                }
+                distances[i][e] = (byte) (solvable(i, layers[i][e]) ? startGreens - i : DEAD);
+            }
+        }
+    }
+
+    /**
+     * Returns the table for a starting config, building it if it isn't one of the tables kept
+     *
+     * @param start the starting config
+     * @param cancelled set by another thread to stop building the table
+     * @return the table, or null if the board is too large for its configs to have keys or the build was
+     * cancelled
+     */
+    public static HoppersDistanceTable of(HoppersConfig start, AtomicBoolean cancelled) {
+        if (!start.hasKey()) {
+            return null;
+        }
+        synchronized (TABLES) {
+            HoppersDistanceTable table = TABLES.get(start);
+            if (table != null) {
+                return table;
+            }
+        }
+        HoppersDistanceTable table = new HoppersDistanceTable(start, cancelled);
+        if (cancelled.get()) {
+            return null;
+        }
+        synchronized (TABLES) {
+            TABLES.put(start, table);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the table already built for a starting config, without building one
+     *
+     * @param start the starting config
+     * @return the table, or null if none is kept for the config
+     */
+    public static HoppersDistanceTable kept(HoppersConfig start) {
+        synchronized (TABLES) {
+            return TABLES.get(start);
+        }
+    }
+
+    /**
+     * Expands every config of a layer and returns the sorted keys of the configs they jump to
+     *
+     * @param layer sorted keys of the layer
+     * @param cancelled set to stop the build
+     * @return sorted keys of the next layer, without duplicates, or no keys if the build was cancelled
+     */
+    private long[] nextLayer(long[] layer, AtomicBoolean cancelled) {
+        long[][] next = {new long[Math.max(16, layer.length * 2)]};
+        int[] size = {0};
+        for (long key: layer) {
+            if (cancelled.get()) {
+                return new long[0];
+            }
+            start.fromKey(key).forEachNeighbor(neighbor -> {
+                if (size[0] == next[0].length) {
+                    next[0] = Arrays.copyOf(next[0], size[0] * 2);
+                }
+                next[0][size[0]++] = ((HoppersConfig) neighbor).getKey();
+            });
+        }
+        long[] keys = next[0];
+        Arrays.sort(keys, 0, size[0]);
+        int unique = 0;
+        for (int i = 0; i < size[0]; i++) {
+            if (unique == 0 || keys[i] != keys[unique - 1]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, unique);
+    }
+
+    /**
+     * Checks whether a config of a layer jumps to a solvable config of the next layer, which has already been
+     * marked
+     *
+     * @param depth number of the layer the config is in
+     * @param key key of the config
+     * @return true if the config can still be solved, else false
+     */
+    private boolean solvable(int depth, long key) {
+        boolean[] found = {false};
+        start.fromKey(key).forEachNeighbor(neighbor -> {
+            if (!found[0]) {
+                int index = Arrays.binarySearch(layers[depth + 1], ((HoppersConfig) neighbor).getKey());
+                found[0] = index >= 0 && distances[depth + 1][index] != DEAD;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Returns the number of moves from a config to the solution. Configs that are already dead when they are
+     * reached are never stored, so they are recognised as dead here.
+     *
+     * @param config the config
+     * @return moves left, DEAD if it can't be solved, or UNKNOWN if it isn't reachable from the starting config
+     */
+    public int distance(HoppersConfig config) {
+        if (config.getBoard() != start.getBoard() && !config.getBoard().equals(start.getBoard())) {
+            return UNKNOWN;
+        }
+        int depth = startGreens - config.estimate();
+        if (depth < 0) {
+            return UNKNOWN;
+        }
+        int index = Arrays.binarySearch(layers[depth], config.getKey());
+        if (index < 0) {
+            return config.isDead() ? DEAD : UNKNOWN;
+        }
+        return distances[depth][index];
+    }
+
+    /**
+     * Returns the config after the next move of a shortest path from a config to the solution
+     *
+     * @param config the config
+     * @return the next config, or null if the config is solved, dead or not in the table
+     */
+    public HoppersConfig next(HoppersConfig config) {
+        int distance = distance(config);
+        if (distance <= 0) {
+            return null;
+        }
+        for (Config neighbor: config.getNeighbors()) {
+            if (distance((HoppersConfig) neighbor) == distance - 1) {
+                return (HoppersConfig) neighbor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the hint for a config, made from its next config and distance
+     *
+     * @param config the config
+     * @return the hint, or null if the config isn't in the table
+     */
+    HintCache.Hint hint(HoppersConfig config) {
+        int distance = distance(config);
+        if (distance == UNKNOWN) {
+            return null;
+        }
+        return new HintCache.Hint(next(config), distance);
+    }
+
+    /**
+     * Returns the number of configs reachable from the starting config
+     *
+     * @return number of configs in the table
+     */
+    public long getStates() {
+        return states;
+    }
+}
@@ -0,0 +1,194 @@
+package puzzles.hoppers.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads Hoppers files. The first line holds the number of rows and columns, and each row of the board follows on
+ * its own line as one character per square: * for water, . for an empty lily pad, G for a green frog and R for a
+ * red frog, usually separated by spaces. The file is read in one go and parsed straight from its bytes into the
+ * board layout and the frog bit sets, without building any strings along the way. Blank lines are skipped.
+ *
+ * Jose Estevez
+ */
+public class HoppersLoader {
+    private final Path file;
+    private final byte[] bytes;
+    private int position;
+    private int line = 1;
+    private int lineStart;
+
+    /**
+     * Constructs a loader for the contents of a file
+     *
+     * @param file the file, used in error messages
+     * @param bytes contents of the file
+     */
+    private HoppersLoader(Path file, byte[] bytes) {
+        this.file = file;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reads a Hoppers file into the config it describes
+     *
+     * @param file the file
+     * @return config of the puzzle in the file
+     * @throws IOException if the file can't be read, or isn't a valid Hoppers file, in which case the message
+     * gives the line and column of the problem
+     */
+    public static HoppersConfig load(Path file) throws IOException {
+        return new HoppersLoader(file, Files.readAllBytes(file)).parse();
+    }
+
+    /**
+     * Parses the size of the board and then each of its rows
+     *
+     * @return the config
+     * @throws IOException if the contents aren't a valid Hoppers file
+     */
+    private HoppersConfig parse() throws IOException {
+        skipBlankLines();
+        int rows = readNumber("number of rows");
+        int columns = readNumber("number of columns");
+        skipSpaces();
+        if (position < bytes.length && !atLineEnd()) {
+            throw error("expected the end of the line after the number of columns");
+        }
+        if ((long) rows * columns > Integer.MAX_VALUE) {
+            throw error("board of " + rows + " by " + columns + " is too large");
+        }
+        boolean[] water = new boolean[rows * columns];
+        byte[] pieces = new byte[rows * columns];
+        for (int i = 0; i < rows; i++) {
+            nextLine();
+            skipBlankLines();
+            if (position >= bytes.length) {
+                throw error("expected " + rows + " rows, found " + i);
+            }
+            int e = 0;
+            while (position < bytes.length && !atLineEnd()) {
+                byte b = bytes[position];
+                if (b == ' ' || b == '\t') {
+                    position++;
+                    continue;
+                }
+                if (b != '*' && b != '.' && b != 'G' && b != 'R') {
+                    throw error("unexpected '" + (char) b + "', expected *, ., G or R");
+                }
+                if (e == columns) {
+                    throw error("row " + i + " has more than " + columns + " squares");
+                }
+                water[i * columns + e] = b == '*';
+                pieces[i * columns + e] = b;
+                e++;
+                position++;
+            }
+            if (e < columns) {
+                throw error("row " + i + " has " + e + " squares, expected " + columns);
+            }
+        }
+        nextLine();
+        skipBlankLines();
+        if (position < bytes.length) {
+            throw error("expected the end of the file after " + rows + " rows");
+        }
+        HoppersBoard board = new HoppersBoard(rows, columns, water);
+        int words = board.getWords();
+        long[] frogs = new long[words * 2];
+        for (int square = 0; square < pieces.length; square++) {
+            if (pieces[square] == 'G' || pieces[square] == 'R') {
+                int cell = board.cell(square / columns, square % columns);
+                int word = (pieces[square] == 'G' ? 0 : words) + (cell >>> 6);
+                frogs[word] |= 1L << cell;
+            }
+        }
+        return new HoppersConfig(board, frogs);
+    }
+
+    /**
+     * Reads a positive whole number, skipping the spaces in front of it
+     *
+     * @param what what the number is, for the error message
+     * @return the number
+     * @throws IOException if there is no positive number
+     */
+    private int readNumber(String what) throws IOException {
+        skipSpaces();
+        long number = 0;
+        int start = position;
+        while (position < bytes.length && bytes[position] >= '0' && bytes[position] <= '9') {
+            number = number * 10 + (bytes[position] - '0');
+            if (number > Integer.MAX_VALUE) {
+                throw error(what + " is too large");
+            }
+            position++;
+        }
+        if (position == start || number == 0) {
+            position = start;
+            throw error("expected the " + what + " as a positive number");
+        }
+        return (int) number;
+    }
+
+    /**
+     * Skips spaces and tabs
+     */
+    private void skipSpaces() {
+        while (position < bytes.length && (bytes[position] == ' ' || bytes[position] == '\t')) {
+            position++;
+        }
+    }
+
+    /**
+     * Checks whether the current byte ends a line
+     *
+     * @return true at a line feed or carriage return, else false
+     */
+    private boolean atLineEnd() {
+        return bytes[position] == '\n' || bytes[position] == '\r';
+    }
+
+    /**
+     * Moves past the end of the current line, which the position must be at or past the end of the file
+     */
+    private void nextLine() {
+        if (position < bytes.length && bytes[position] == '\r') {
+            position++;
+        }
+        if (position < bytes.length && bytes[position] == '\n') {
+            position++;
+        }
+        line++;
+        lineStart = position;
+    }
+
+    /**
+     * Skips lines holding nothing but spaces, leaving the position at the start of the next line that has
+     * something on it, or at the end of the file
+     */
+    private void skipBlankLines() {
+        while (true) {
+            int start = position;
+            skipSpaces();
+            if (position < bytes.length && atLineEnd()) {
+                nextLine();
+            }
+            else {
+                position = start;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates the exception for a problem at the current position
+     *
+     * @param message what is wrong
+     * @return exception whose message gives the file, line and column
+     */
+    private IOException error(String message) {
+        return new IOException(file + ":" + line + ":" + (position - lineStart + 1) + ": " + message);
+    }
+}
@@ -2,14 +2,24 @@ package puzzles.hoppers.model;
 
 import puzzles.common.Observer;
 import puzzles.common.solver.Config;
+import puzzles.common.solver.Solution;
+import puzzles.common.solver.SolutionStore;
 import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverLimits;
+import puzzles.common.solver.SolverResult;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Creates and controls the model for the HopperPuzzle
@@ -17,9 +27,30 @@ import java.util.List;
  * Jose Estevez
  */
 public class HoppersModel {
+    /** directory puzzle files are looked for in when they aren't found as given */
+    private static final String DATA_DIR = "data/hoppers";
+
+    /** background threads hints are solved on, which don't keep the program running when the UI closes */
+    private static final ExecutorService HINT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "hoppers-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /** the collection of observers of this model */
     private final List<Observer<HoppersModel, HoppersClientData>> observers = new LinkedList<>();
 
+    /** runs the results of background hints, on whichever thread the view wants its updates on */
+    private Executor notifier = Runnable::run;
+    /** the hint being solved in the background, or null if there is none */
+    private Future<?> pendingHint;
+    /** set to stop the search of the hint being solved in the background */
+    private AtomicBoolean hintCancelled;
+    /** distances of every config reachable from the original config, or null if they haven't been worked out */
+    private HoppersDistanceTable table;
+    /** set to stop the distance table being built in the background, or null if none is being built */
+    private AtomicBoolean precomputeCancelled;
+
 
     /** the current configuration */
     private HoppersConfig currentConfig;
@@ -33,8 +64,18 @@ public class HoppersModel {
      * @param input contents of Hoppers file
      */
     public HoppersModel(String input) {
-        origConfig = new HoppersConfig(input);
+        this(new HoppersConfig(input));
+    }
+
+    /**
+     * Constructs HopperModel
+     *
+     * @param config starting config of the puzzle, such as one read by HoppersLoader
+     */
+    public HoppersModel(HoppersConfig config) {
+        origConfig = config;
         currentConfig = new HoppersConfig(origConfig);
+        table = HoppersDistanceTable.kept(origConfig);
     }
 
     /**
@@ -57,70 +98,280 @@ public class HoppersModel {
     }
 
     /**
-     * Does the next step of the puzzle if the puzzle has a solution
+     * Sets the executor the results of hints solved in the background are handed to before the observers are
+     * told about them. A GUI passes the executor of its UI thread, such as Platform::runLater. By default the
+     * results are handed over on the background thread.
+     *
+     * @param notifier executor the results of hints are run on
+     */
+    public void setNotifier(Executor notifier) {
+        this.notifier = notifier;
+    }
+
+    /**
+     * Does the next step of the puzzle if the puzzle has a solution. Configs in the distance table, if one has
+     * been precomputed, or solved before and in the shared HintCache are looked up and the step is done straight
+     * away. Otherwise the config is solved on a background thread
+     * and the step is done once the result is handed to the notifier, unless the hint was cancelled by a move,
+     * reset or load in the meantime. If solving fails, say because the store can't be read or the search runs out
+     * of memory, the failure is handed to the notifier instead, so a later hint can try again.
      */
-    public void hint() {
+    public synchronized void hint() {
         if (currentConfig.isSolution()) {
             alertObservers(new HoppersClientData("Already solved!"));
+            return;
+        }
+        if (pendingHint != null) {
+            alertObservers(new HoppersClientData("Still working on a hint"));
+            return;
+        }
+        HintCache.Hint hint = table == null ? null : table.hint(currentConfig);
+        if (hint == null) {
+            hint = HintCache.shared().get(currentConfig);
+        }
+        if (hint != null) {
+            showHint(hint);
+            return;
+        }
+        HoppersConfig config = currentConfig;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        hintCancelled = cancelled;
+        alertObservers(new HoppersClientData("Working on a hint..."));
+        pendingHint = HINT_EXECUTOR.submit(() -> {
+            try {
+                HintCache.Hint solved = solveHint(config, cancelled);
+                if (solved != null) {
+                    notifier.execute(() -> finishHint(config, cancelled, solved));
+                }
+            }
+            catch (RuntimeException | OutOfMemoryError e) {
+                notifier.execute(() -> failHint(cancelled, e));
+            }
+        });
+    }
+
+    /**
+     * Solves a config and caches the whole path, stopping early if the hint is cancelled. If a SolutionStore is
+     * set up, the solution is read from it when it is there and added to it when it isn't.
+     *
+     * @param config the config
+     * @param cancelled set when the hint is cancelled
+     * @return hint for the config, or null if it was cancelled
+     */
+    private static HintCache.Hint solveHint(HoppersConfig config, AtomicBoolean cancelled) {
+        SolutionStore store = config.hasKey() ? SolutionStore.shared() : null;
+        String puzzle = "hoppers " + config.getLayout();
+        Solution stored = store == null ? null : store.get(puzzle, config);
+        ArrayList<Config> path;
+        if (stored != null) {
+            path = stored.getPath();
         }
         else {
-            Solver solver = new Solver(currentConfig);
-            ArrayList<Config> path = solver.solve();
-            if (path == null) {
-                alertObservers(new HoppersClientData("There is no solution, reset the game"));
+            SolverLimits limits = new SolverLimits();
+            limits.setCancelToken(cancelled);
+            SolverResult result = new Solver(config).solve(limits);
+            if (result.isStopped()) {
+                return null;
             }
-            else {
-                currentConfig = (HoppersConfig) path.get(path.indexOf(currentConfig) + 1);
-                alertObservers(new HoppersClientData("Next step!"));
+            path = result.getPath();
+            if (store != null) {
+                store.put(puzzle, config, new Solution(path, result.getTotalConfigs(), result.getUniqueConfigs(),
+                        false));
             }
         }
+        if (path == null) {
+            return HintCache.shared().putUnsolvable(config);
+        }
+        return HintCache.shared().putPath(path);
     }
 
     /**
-     * Loads a hoppers puzzle specified by the user
+     * Does the step of a hint solved in the background, unless it was cancelled since it was started
      *
-     * @param fileName filename specified by user
+     * @param config the config the hint was solved for
+     * @param cancelled set when the hint is cancelled
+     * @param hint the solved hint
      */
-    public void load(String fileName) {
-        String input = "";
-        try(BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            line = reader.readLine();
-            String[] split1 = line.split(" ");
-            for (String s : split1) {
-                input += s + "/";
-            }
-            while ((line = reader.readLine()) != (null)) {
-                String[] split = line.split(" ");
-                for (String s : split) {
-                    input += s;
+    private synchronized void finishHint(HoppersConfig config, AtomicBoolean cancelled, HintCache.Hint hint) {
+        if (cancelled.get() || currentConfig != config) {
+            return;
+        }
+        pendingHint = null;
+        hintCancelled = null;
+        showHint(hint);
+    }
+
+    /**
+     * Clears a hint that failed in the background, so it isn't waited on any longer, and tells the observers why,
+     * unless it was cancelled since it was started
+     *
+     * @param cancelled set when the hint is cancelled
+     * @param failure what went wrong
+     */
+    private synchronized void failHint(AtomicBoolean cancelled, Throwable failure) {
+        if (cancelled.get() || hintCancelled != cancelled) {
+            return;
+        }
+        pendingHint = null;
+        hintCancelled = null;
+        alertObservers(new HoppersClientData("Failed to work out a hint: " + failure.getMessage()));
+    }
+
+    /**
+     * Does the step of a hint and tells the observers
+     *
+     * @param hint hint for the current config
+     */
+    private void showHint(HintCache.Hint hint) {
+        if (!hint.isSolvable()) {
+            alertObservers(new HoppersClientData("There is no solution, reset the game"));
+        }
+        else {
+            currentConfig = hint.getNext();
+            alertObservers(new HoppersClientData("Next step!"));
+        }
+    }
+
+    /**
+     * Works out the distance to the solution of every config reachable from the original config on a background
+     * thread, so hints and moves remaining are lookups from then on. The observers are told through the notifier
+     * once it is done, or if it fails, say because it runs out of memory. Boards with more than 32 lily pads are
+     * too large. Asking again while a table is being worked out does nothing, and loading another puzzle cancels
+     * it.
+     */
+    public synchronized void precompute() {
+        if (!origConfig.hasKey()) {
+            alertObservers(new HoppersClientData("Board too large to precompute"));
+            return;
+        }
+        if (precomputeCancelled != null) {
+            alertObservers(new HoppersClientData("Still precomputing"));
+            return;
+        }
+        HoppersConfig config = origConfig;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        precomputeCancelled = cancelled;
+        alertObservers(new HoppersClientData("Precomputing..."));
+        HINT_EXECUTOR.execute(() -> {
+            try {
+                HoppersDistanceTable built = HoppersDistanceTable.of(config, cancelled);
+                if (built != null) {
+                    notifier.execute(() -> finishPrecompute(cancelled, built));
                 }
             }
-            origConfig = new HoppersConfig(input);
+            catch (RuntimeException | OutOfMemoryError e) {
+                notifier.execute(() -> failPrecompute(cancelled, e));
+            }
+        });
+    }
+
+    /**
+     * Starts using a precomputed distance table, unless it was cancelled since it was started
+     *
+     * @param cancelled set when the build is cancelled
+     * @param built the table
+     */
+    private synchronized void finishPrecompute(AtomicBoolean cancelled, HoppersDistanceTable built) {
+        if (cancelled.get() || precomputeCancelled != cancelled) {
+            return;
+        }
+        precomputeCancelled = null;
+        table = built;
+        alertObservers(new HoppersClientData("Precomputed " + built.getStates() + " configs"));
+    }
+
+    /**
+     * Clears a distance table build that failed in the background, so precompute() can be tried again, and tells
+     * the observers why, unless it was cancelled since it was started
+     *
+     * @param cancelled set when the build is cancelled
+     * @param failure what went wrong
+     */
+    private synchronized void failPrecompute(AtomicBoolean cancelled, Throwable failure) {
+        if (cancelled.get() || precomputeCancelled != cancelled) {
+            return;
+        }
+        precomputeCancelled = null;
+        alertObservers(new HoppersClientData("Failed to precompute: " + failure.getMessage()));
+    }
+
+    /**
+     * Returns the number of moves left to solve the puzzle from the current config, if it is known
+     *
+     * @return moves left, HoppersDistanceTable.DEAD if the puzzle can't be solved from here, or
+     * HoppersDistanceTable.UNKNOWN if no distance table has been precomputed
+     */
+    public synchronized int getMovesRemaining() {
+        if (table == null) {
+            return HoppersDistanceTable.UNKNOWN;
+        }
+        return table.distance(currentConfig);
+    }
+
+    /**
+     * Cancels the hint being solved in the background, if there is one
+     */
+    private void cancelHint() {
+        if (pendingHint != null) {
+            hintCancelled.set(true);
+            pendingHint.cancel(false);
+            pendingHint = null;
+            hintCancelled = null;
+        }
+    }
+
+    /**
+     * Cancels the distance table being worked out in the background, if there is one
+     */
+    private void cancelPrecompute() {
+        if (precomputeCancelled != null) {
+            precomputeCancelled.set(true);
+            precomputeCancelled = null;
+        }
+    }
+
+    /**
+     * Loads a hoppers puzzle specified by the user, cancelling any hint still being worked on, and once the new
+     * puzzle is read, any distance table still being worked out for the old one. A file name that isn't found as
+     * given is looked for in the data/hoppers directory.
+     *
+     * @param fileName filename specified by user
+     */
+    public synchronized void load(String fileName) {
+        cancelHint();
+        Path file = Paths.get(fileName);
+        if (!Files.exists(file) && Files.exists(Paths.get(DATA_DIR, fileName))) {
+            file = Paths.get(DATA_DIR, fileName);
+        }
+        try {
+            origConfig = HoppersLoader.load(file);
+            cancelPrecompute();
             currentConfig = new HoppersConfig(origConfig);
+            table = HoppersDistanceTable.kept(origConfig);
             alertObservers(new HoppersClientData("Loaded: " + fileName));
         }
         catch (IOException e) {
-            alertObservers(new HoppersClientData("Failed to load: " + fileName));
+            alertObservers(new HoppersClientData("Failed to load: " + e.getMessage()));
         }
     }
 
     /**
-     * Resets the current puzzle to its initial state
+     * Resets the current puzzle to its initial state, cancelling any hint still being worked on
      */
-    public void reset() {
+    public synchronized void reset() {
+        cancelHint();
         currentConfig = new HoppersConfig(origConfig);
         alertObservers(new HoppersClientData("Puzzle reset!"));
     }
 
     /**
      * Selects a coordinate of a frog if coordinates are valid, makes the frog move if a frog has been
-     * selected already and move is valid
+     * selected already and move is valid. A move cancels any hint still being worked on.
      *
      * @param row row coordinate
      * @param column column coordinate
      */
-    public void select(int row, int column) {
+    public synchronized void select(int row, int column) {
         if (row < 0 || column < 0 || row  > currentConfig.getRows()-1 || column > currentConfig.getColumns()-1) {
             alertObservers(new HoppersClientData("Out of bounds, choose a different row and/or column"));
         }
@@ -137,6 +388,7 @@ public class HoppersModel {
         else {
             HoppersConfig hoppersConfig = currentConfig.jump(this.row, this.column, row, column, currentConfig.get(this.row, this.column));
             if (hoppersConfig != null) {
+                cancelHint();
                 currentConfig = hoppersConfig;
                 alertObservers(new HoppersClientData("Jumped from (" + this.row + ", " + this.column + ") to (" + row + ", " + column + ")"));
             }
@@ -153,7 +405,7 @@ public class HoppersModel {
      *
      * @return current hopper config
      */
-    public HoppersConfig getCurrentConfig() {
+    public synchronized HoppersConfig getCurrentConfig() {
         return currentConfig;
     }
 }
@@ -2,11 +2,13 @@ package puzzles.hoppers.ptui;
 
 import puzzles.common.Observer;
 import puzzles.hoppers.model.HoppersClientData;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersDistanceTable;
+import puzzles.hoppers.model.HoppersLoader;
 import puzzles.hoppers.model.HoppersModel;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 /**
@@ -20,10 +22,10 @@ public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
     /**
      * Constructs ptui and model
      *
-     * @param input contents of Hoppers file
+     * @param config starting config read from the Hoppers file
      */
-    public HoppersPTUI(String input) {
-        model = new HoppersModel(input);
+    public HoppersPTUI(HoppersConfig config) {
+        model = new HoppersModel(config);
         initializeView();
     }
 
@@ -50,11 +52,14 @@ public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
                     model.hint();
                 }
                 else if (words[0].startsWith("l")) {
-                    model.load("data/hoppers/" + words[1]);
+                    model.load(words[1]);
                 }
                 else if (words[0].startsWith("s")) {
                     model.select(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
                 }
+                else if (words[0].startsWith("p")) {
+                    model.precompute();
+                }
                 else if (words[0].startsWith("q")) {
                     break;
                 }
@@ -69,10 +74,17 @@ public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
     }
 
     /**
-     * Prints hoppers board
+     * Prints hoppers board, and the moves remaining if the distances have been precomputed
      */
     private void displayBoard() {
         System.out.println(model.getCurrentConfig().necessary());
+        int moves = model.getMovesRemaining();
+        if (moves == HoppersDistanceTable.DEAD) {
+            System.out.println("No solution from here");
+        }
+        else if (moves != HoppersDistanceTable.UNKNOWN) {
+            System.out.println("Moves remaining: " + moves);
+        }
     }
 
     /**
@@ -96,6 +108,7 @@ public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
     public void displayHelp() {
         System.out.println("h(int)                     -- hint next move");
         System.out.println("l(oad) filename            -- load new puzzle file");
+        System.out.println("p(recompute)               -- work out the distance of every config");
         System.out.println("s(elect) r c               -- select cell at r, c");
         System.out.println("q(uit)                     -- quit the game");
         System.out.println("r(eset)                    -- reset the current game");
@@ -110,24 +123,14 @@ public class HoppersPTUI implements Observer<HoppersModel, HoppersClientData> {
         if (args.length != 1) {
             System.out.println("Usage: java HoppersPTUI filename");
         }
-        String input = "";
-        try(BufferedReader reader = new BufferedReader(new FileReader(args[0]))) {
-            String line;
-            line = reader.readLine();
-            String[] split1 = line.split(" ");
-            for (int e = 0; e < split1.length; e++) {
-                input += split1[e] + "/";
-            }
-            while ((line = reader.readLine()) != (null)) {
-                String[] split = line.split(" ");
-                for (int i = 0; i < split.length; i++) {
-                    input += split[i];
-                }
-            }
+        try {
+            HoppersConfig config = HoppersLoader.load(Paths.get(args[0]));
             System.out.println("Loaded: " + args[0]);
-            HoppersPTUI ptui = new HoppersPTUI(input);
+            HoppersPTUI ptui = new HoppersPTUI(config);
             ptui.run();
         }
-        catch (IOException e) {}
+        catch (IOException e) {
+            System.out.println("Failed to load: " + e.getMessage());
+        }
     }
 }
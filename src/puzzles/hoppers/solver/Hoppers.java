@@ -1,17 +1,18 @@
 package puzzles.hoppers.solver;
 
-import puzzles.common.solver.Config;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.PathWriter;
+import puzzles.common.solver.Solution;
+import puzzles.common.solver.SolutionStore;
 import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersLoader;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Paths;
 
 /**
  * This class represents the Hoppers puzzle. Reads a file and uses it to create a Hopper config and passes
- * it to a solver, then uses the solver to find the solution path for the config. Prints results of search
+ * it to a solver, then uses the solver to find the solution path for the config. Prints results of search. If a
+ * SolutionStore is set up, a board solved before is read from it instead.
  *
  * Jose Estevez
  */
@@ -20,37 +21,22 @@ public class Hoppers {
         if (args.length != 1) {
             System.out.println("Usage: java Hoppers filename");
         }
-        String input = "";
-        try(BufferedReader reader = new BufferedReader(new FileReader(args[0]))) {
-            String line;
-            line = reader.readLine();
-            String[] split1 = line.split(" ");
-            for (int e = 0; e < split1.length; e++) {
-                input += split1[e] + "/";
-            }
-            while ((line = reader.readLine()) != (null)) {
-                String[] split = line.split(" ");
-                for (int i = 0; i < split.length; i++) {
-                    input += split[i];
-                }
-            }
+        HoppersConfig hopper;
+        try {
+            hopper = HoppersLoader.load(Paths.get(args[0]));
         }
-        catch (IOException e) {}
-        HoppersConfig hopper = new HoppersConfig(input);
-        Solver solver = new Solver(hopper);
-        ArrayList<Config> path = solver.solve();
-        System.out.println("Total configs: " + solver.getTotalConfigs());
-        System.out.println("Unique configs: " + solver.getUniqueConfigs());
-        if (path == null) {
+        catch (IOException e) {
+            System.out.println("Failed to load: " + e.getMessage());
+            return;
+        }
+        Solution solution = SolutionStore.solve("hoppers " + hopper.getLayout(), hopper);
+        System.out.println("Total configs: " + solution.getTotalConfigs());
+        System.out.println("Unique configs: " + solution.getUniqueConfigs());
+        if (solution.getPath() == null) {
             System.out.println("No solution.");
         }
         else {
-            int step = 0;
-            for (Config config : path) {
-                HoppersConfig hoppersConfig = (HoppersConfig) config;
-                System.out.println("Step " + step + ": " + hoppersConfig.necessary());
-                step++;
-            }
+            PathWriter.print(solution.getPath());
         }
     }
 }
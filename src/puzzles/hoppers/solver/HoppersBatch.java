@@ -0,0 +1,243 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverLimits;
+import puzzles.common.solver.SolverResult;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Solves many Hoppers puzzles at once. Takes a directory, whose files are all solved, or a manifest file listing
+ * one puzzle file per line, relative to the manifest. The puzzles are solved by a fixed number of worker threads,
+ * each puzzle with its own SolverLimits on time, the number of configs it may keep and the memory they are
+ * estimated to take. Each result is written out as soon as its puzzle is done, as a line of CSV or JSON, with
+ * the status of the SolverResult and the deepest BFS level the search reached.
+ *
+ * Usage: java HoppersBatch [-threads n] [-time seconds] [-states n] [-memory megabytes] [-format csv|jsonl]
+ * [-out file] directory|manifest
+ *
+ * Jose Estevez
+ */
+public class HoppersBatch {
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private SolverLimits limits = new SolverLimits();
+    private boolean json;
+    private Writer out;
+
+    /**
+     * Reads the options, finds the puzzle files and solves them all
+     *
+     * @param args options followed by a directory or manifest file
+     */
+    public static void main(String[] args) {
+        HoppersBatch batch = new HoppersBatch();
+        String source = null;
+        String outFile = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-threads")) {
+                    batch.threads = Integer.parseInt(args[++i]);
+                }
+                else if (args[i].equals("-time")) {
+                    batch.limits.setTimeLimit((long) (Double.parseDouble(args[++i]) * 1000));
+                }
+                else if (args[i].equals("-states")) {
+                    batch.limits.setMaxUniqueConfigs(Long.parseLong(args[++i]));
+                }
+                else if (args[i].equals("-memory")) {
+                    batch.limits.setMaxMemory(Long.parseLong(args[++i]) << 20);
+                }
+                else if (args[i].equals("-format")) {
+                    batch.json = args[++i].equals("jsonl");
+                }
+                else if (args[i].equals("-out")) {
+                    outFile = args[++i];
+                }
+                else {
+                    source = args[i];
+                }
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            source = null;
+        }
+        if (source == null) {
+            System.out.println("Usage: java HoppersBatch [-threads n] [-time seconds] [-states n] "
+                    + "[-memory megabytes] [-format csv|jsonl] [-out file] directory|manifest");
+            return;
+        }
+        try {
+            List<Path> puzzles = findPuzzles(Paths.get(source));
+            batch.out = outFile == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(Paths.get(outFile));
+            batch.run(puzzles);
+        }
+        catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the puzzle files of a directory, in name order, or the puzzle files named in a manifest
+     *
+     * @param source directory or manifest file
+     * @return puzzle files
+     * @throws IOException if the directory or manifest can't be read
+     */
+    private static List<Path> findPuzzles(Path source) throws IOException {
+        List<Path> puzzles = new ArrayList<>();
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> files = Files.list(source)) {
+                files.filter(Files::isRegularFile)
+                        .filter(file -> !file.getFileName().toString().startsWith("."))
+                        .sorted()
+                        .forEach(puzzles::add);
+            }
+        }
+        else {
+            Path directory = source.toAbsolutePath().getParent();
+            for (String line: Files.readAllLines(source)) {
+                if (!line.isBlank()) {
+                    puzzles.add(directory.resolve(line.trim()));
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Solves every puzzle on the worker threads, writing each result as it comes in, and waits for them all
+     *
+     * @param puzzles puzzle files
+     * @throws IOException if the results can't be written
+     */
+    private void run(List<Path> puzzles) throws IOException {
+        if (!json) {
+            write("file,status,steps,total_configs,unique_configs,depth,millis");
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (Path puzzle: puzzles) {
+            workers.execute(() -> solve(puzzle));
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+    }
+
+    /**
+     * Solves one puzzle within the limits and writes its result
+     *
+     * @param puzzle puzzle file
+     */
+    private void solve(Path puzzle) {
+        long started = System.nanoTime();
+        String status;
+        long steps = -1;
+        long total = 0;
+        long unique = 0;
+        int depth = 0;
+        try {
+            HoppersConfig config = HoppersLoader.load(puzzle);
+            SolverResult result = new Solver(config).solve(limits);
+            status = result.getStatus().name().toLowerCase(Locale.ROOT).replace("_", "-");
+            total = result.getTotalConfigs();
+            unique = result.getUniqueConfigs();
+            depth = result.getDeepestLevel();
+            if (result.getPath() != null) {
+                steps = result.getPath().size() - 1;
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            status = "error";
+        }
+        catch (OutOfMemoryError e) {
+            status = "out-of-memory";
+        }
+        long millis = (System.nanoTime() - started) / 1000000;
+        String file = puzzle.toString();
+        try {
+            if (json) {
+                write("{\"file\":\"" + escape(file) + "\",\"status\":\"" + status + "\",\"steps\":" + steps
+                        + ",\"total_configs\":" + total + ",\"unique_configs\":" + unique + ",\"depth\":" + depth
+                        + ",\"millis\":" + millis + "}");
+            }
+            else {
+                write(quote(file) + "," + status + "," + steps + "," + total + "," + unique + "," + depth + ","
+                        + millis);
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Failed to write result for " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes one line of output and flushes it, so results show up as puzzles finish
+     *
+     * @param line the line
+     * @throws IOException if it can't be written
+     */
+    private synchronized void write(String line) throws IOException {
+        out.write(line);
+        out.write(System.lineSeparator());
+        out.flush();
+    }
+
+    /**
+     * Quotes a CSV field if it holds a comma, quote or line break
+     *
+     * @param field the field
+     * @return the field as it should be written
+     */
+    private static String quote(String field) {
+        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+
+    /**
+     * Escapes backslashes, quotes and control characters for a JSON string
+     *
+     * @param text the text
+     * @return escaped text
+     */
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c: text.toCharArray()) {
+            if (c == "\"".charAt(0) || c == "\\".charAt(0)) {
+                escaped.append("\\").append(c);
+            }
+            else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,242 @@
+package puzzles.jam.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Represents the layout of a jam board: its size and, for each car, its letter, which way it faces, how long it
+ * is and which row or column it drives along. None of that changes as the cars move, so every JamConfig of a
+ * puzzle shares one JamBoard and only holds how far along its line each car is, its offset. The offsets of all
+ * the cars are packed into one long, a few bits per car, and each square of the board is one bit of a long
+ * occupancy bitboard, numbered row * columns + column. For each car and offset the board keeps the bitboard of the
+ * squares the car covers, so checking a move or working out the new occupancy is a couple of bit operations. It
+ * also keeps a random Zobrist number for each car at each offset, from a fixed seed, for hashing configs.
+ *
+ * Jose Estevez
+ */
+class JamBoard {
+    private final int rows;
+    private final int columns;
+    private final char[] letters;
+    private final boolean[] horizontal;
+    private final int[] lengths;
+    private final int[] lines;
+    private final int shift;
+    private final long[][] masks;
+    private final long[][] zobrist;
+    private final int goalCar;
+    private final long[] exitPaths;
+
+    /**
+     * Constructs a board. The caller has already checked that the cars are straight, on the board, don't overlap,
+     * and that their offsets fit in a long.
+     *
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param letters letter of each car
+     * @param horizontal true for each car that faces along its row
+     * @param lengths number of squares each car covers
+     * @param lines the row of each horizontal car and the column of each vertical car
+     * @param goalCar index of the car that has to reach the last column
+     */
+    JamBoard(int rows, int columns, char[] letters, boolean[] horizontal, int[] lengths, int[] lines,
+             int goalCar) {
+        this.rows = rows;
+        this.columns = columns;
+        this.letters = letters;
+        this.horizontal = horizontal;
+        this.lengths = lengths;
+        this.lines = lines;
+        this.goalCar = goalCar;
+        shift = bitsPerCar(rows, columns);
+        masks = new long[letters.length][];
+        for (int car = 0; car < letters.length; car++) {
+            masks[car] = new long[getMaxOffset(car) + 1];
+            for (int offset = 0; offset < masks[car].length; offset++) {
+                for (int i = 0; i < lengths[car]; i++) {
+                    masks[car][offset] |= horizontal[car] ? bit(lines[car], offset + i) : bit(offset + i, lines[car]);
+                }
+            }
+        }
+        zobrist = new long[letters.length][];
+        SplittableRandom random = new SplittableRandom(letters.length);
+        for (int car = 0; car < letters.length; car++) {
+            zobrist[car] = new long[masks[car].length];
+            for (int offset = 0; offset < zobrist[car].length; offset++) {
+                zobrist[car][offset] = random.nextLong();
+            }
+        }
+        exitPaths = new long[masks[goalCar].length];
+        if (horizontal[goalCar]) {
+            for (int offset = 0; offset < exitPaths.length; offset++) {
+                for (int column = offset + lengths[goalCar]; column < columns; column++) {
+                    exitPaths[offset] |= bit(lines[goalCar], column);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bits each car's offset takes in the packed offsets of a board of the given size
+     *
+     * @param rows number of rows
+     * @param columns number of columns
+     * @return bits per car
+     */
+    static int bitsPerCar(int rows, int columns) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(rows, columns) - 1));
+    }
+
+    /**
+     * Returns the bit of the occupancy bitboard for a square
+     *
+     * @param row row of the square
+     * @param column column of the square
+     * @return the bit
+     */
+    long bit(int row, int column) {
+        return 1L << (row * columns + column);
+    }
+
+    /**
+     * Returns the squares a car covers at an offset
+     *
+     * @param car index of the car
+     * @param offset offset of the car
+     * @return bitboard of the squares
+     */
+    long mask(int car, int offset) {
+        return masks[car][offset];
+    }
+
+    /**
+     * Returns the Zobrist number of a car at an offset
+     *
+     * @param car index of the car
+     * @param offset offset of the car
+     * @return the number
+     */
+    long zobrist(int car, int offset) {
+        return zobrist[car][offset];
+    }
+
+    /**
+     * Returns the squares between the right end of the goal car and the last column when the goal car is at an
+     * offset, all of which have to be cleared before it gets out
+     *
+     * @param offset offset of the goal car
+     * @return bitboard of the squares
+     */
+    long exitPath(int offset) {
+        return exitPaths[offset];
+    }
+
+    /**
+     * Returns the offset of a car in packed offsets
+     *
+     * @param offsets packed offsets
+     * @param car index of the car
+     * @return offset of the car
+     */
+    int offset(long offsets, int car) {
+        return (int) ((offsets >>> (car * shift)) & ((1L << shift) - 1));
+    }
+
+    /**
+     * Returns packed offsets with the offset of one car changed
+     *
+     * @param offsets packed offsets
+     * @param car index of the car
+     * @param offset new offset of the car
+     * @return new packed offsets
+     */
+    long withOffset(long offsets, int car, int offset) {
+        long field = ((1L << shift) - 1) << (car * shift);
+        return (offsets & ~field) | ((long) offset << (car * shift));
+    }
+
+    /**
+     * Returns the largest offset a car can have and still be on the board
+     *
+     * @param car index of the car
+     * @return largest offset
+     */
+    int getMaxOffset(int car) {
+        return (horizontal[car] ? columns : rows) - lengths[car];
+    }
+
+    /**
+     * Returns the number of cars
+     *
+     * @return number of cars
+     */
+    int getCars() {
+        return letters.length;
+    }
+
+    /**
+     * Returns the letter of a car
+     *
+     * @param car index of the car
+     * @return letter
+     */
+    char getLetter(int car) {
+        return letters[car];
+    }
+
+    /**
+     * Checks whether a car faces along its row
+     *
+     * @param car index of the car
+     * @return true if horizontal, false if vertical
+     */
+    boolean isHorizontal(int car) {
+        return horizontal[car];
+    }
+
+    /**
+     * Returns the number of squares a car covers
+     *
+     * @param car index of the car
+     * @return length
+     */
+    int getLength(int car) {
+        return lengths[car];
+    }
+
+    /**
+     * Returns the row a horizontal car drives along or the column a vertical car drives along
+     *
+     * @param car index of the car
+     * @return row or column
+     */
+    int getLine(int car) {
+        return lines[car];
+    }
+
+    /**
+     * Returns the index of the car that has to reach the last column
+     *
+     * @return index of the goal car
+     */
+    int getGoalCar() {
+        return goalCar;
+    }
+
+    /**
+     * Returns number of rows on the board
+     *
+     * @return number of rows
+     */
+    int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns number of columns on the board
+     *
+     * @return number of columns
+     */
+    int getColumns() {
+        return columns;
+    }
+}
@@ -1,6 +1,379 @@
 package puzzles.jam.model;
 
-// TODO: implement your JamConfig for the common solver
+import puzzles.common.solver.Config;
+import puzzles.common.solver.HeuristicConfig;
+import puzzles.common.solver.KeyedConfig;
+import puzzles.common.solver.PathWriter;
 
-public class JamConfig {
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a single JamConfig. It implements the Config interface and implements all required
+ * methods. The layout of the board and the cars is kept in a JamBoard shared by every config of the puzzle, so a
+ * config is only the offsets of the cars packed into a long, which is also its key, and the bitboard of the
+ * squares they cover. A car can slide any number of squares along its line as long as none of the squares it
+ * covers on the way are taken, which is checked against the bitboard, and each neighbor is made from two longs
+ * without building a grid. The puzzle is solved when car X reaches the last column. The estimate is one move for
+ * X plus one for each car in the way of X. The hash is a Zobrist hash of the car offsets, worked out when the
+ * config is created and updated for the one car that moves in each neighbor.
+ *
+ * Jose Estevez
+ */
+public class JamConfig implements KeyedConfig, HeuristicConfig {
+    private final JamBoard board;
+    private final long offsets;
+    private final long occupied;
+    private final long zobrist;
+
+    /**
+     * Constructs a JamConfig from the offsets of its cars, working out the squares they cover
+     *
+     * @param board layout of the board and cars
+     * @param offsets packed offsets of the cars
+     */
+    JamConfig(JamBoard board, long offsets) {
+        this.board = board;
+        this.offsets = offsets;
+        long occupied = 0;
+        long zobrist = 0;
+        for (int car = 0; car < board.getCars(); car++) {
+            occupied |= board.mask(car, board.offset(offsets, car));
+            zobrist ^= board.zobrist(car, board.offset(offsets, car));
+        }
+        this.occupied = occupied;
+        this.zobrist = zobrist;
+    }
+
+    /**
+     * Constructs a JamConfig whose occupied squares and hash are already known
+     *
+     * @param board layout of the board and cars
+     * @param offsets packed offsets of the cars
+     * @param occupied bitboard of the squares the cars cover
+     * @param zobrist Zobrist hash of the offsets
+     */
+    private JamConfig(JamBoard board, long offsets, long occupied, long zobrist) {
+        this.board = board;
+        this.offsets = offsets;
+        this.occupied = occupied;
+        this.zobrist = zobrist;
+    }
+
+    /**
+     * Creates a config for every way a car can slide, any number of squares either way along its line.
+     *
+     * @return neighbor configs
+     */
+    @Override
+    public ArrayList<Config> getNeighbors() {
+        ArrayList<Config> neighbors = new ArrayList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Hands a config for every way a car can slide to the consumer. Each car is taken off the bitboard and then
+     * slid one square at a time each way until it would cover a square that is taken.
+     *
+     * @param consumer consumer each neighbor is handed to
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Config> consumer) {
+        for (int car = 0; car < board.getCars(); car++) {
+            int offset = board.offset(offsets, car);
+            long others = occupied & ~board.mask(car, offset);
+            for (int to = offset - 1; to >= 0 && (board.mask(car, to) & others) == 0; to--) {
+                consumer.accept(slide(car, to, others));
+            }
+            for (int to = offset + 1; to <= board.getMaxOffset(car) && (board.mask(car, to) & others) == 0; to++) {
+                consumer.accept(slide(car, to, others));
+            }
+        }
+    }
+
+    /**
+     * Creates the config with a car moved to a new offset
+     *
+     * @param car index of the car
+     * @param to new offset of the car
+     * @param others bitboard of the squares the other cars cover
+     * @return the config
+     */
+    private JamConfig slide(int car, int to, long others) {
+        long hash = zobrist ^ board.zobrist(car, board.offset(offsets, car)) ^ board.zobrist(car, to);
+        return new JamConfig(board, board.withOffset(offsets, car, to), others | board.mask(car, to), hash);
+    }
+
+    /**
+     * Moves the car covering a square so that it covers another square in its line, if nothing is in the way
+     *
+     * @param row row of a square the car covers
+     * @param column column of a square the car covers
+     * @param toRow row of the square to move the car onto
+     * @param toColumn column of the square to move the car onto
+     * @return JamConfig if move is valid, null otherwise
+     */
+    public JamConfig move(int row, int column, int toRow, int toColumn) {
+        int car = carAt(row, column);
+        if (car < 0) {
+            return null;
+        }
+        int along;
+        if (board.isHorizontal(car) && toRow == row) {
+            along = toColumn;
+        }
+        else if (!board.isHorizontal(car) && toColumn == column) {
+            along = toRow;
+        }
+        else {
+            return null;
+        }
+        int offset = board.offset(offsets, car);
+        int to;
+        if (along < offset) {
+            to = along;
+        }
+        else if (along >= offset + board.getLength(car)) {
+            to = along - board.getLength(car) + 1;
+        }
+        else {
+            return null;
+        }
+        if (to < 0 || to > board.getMaxOffset(car)) {
+            return null;
+        }
+        long others = occupied & ~board.mask(car, offset);
+        int step = to < offset ? -1 : 1;
+        for (int o = offset + step; o != to + step; o += step) {
+            if ((board.mask(car, o) & others) != 0) {
+                return null;
+            }
+        }
+        return slide(car, to, others);
+    }
+
+    /**
+     * Every jam config fits in a long, since the loader only accepts boards whose offsets do
+     *
+     * @return true
+     */
+    @Override
+    public boolean hasKey() {
+        return true;
+    }
+
+    /**
+     * Returns the packed offsets of the cars as the key
+     *
+     * @return key
+     */
+    @Override
+    public long getKey() {
+        return offsets;
+    }
+
+    /**
+     * Creates the config of this board with the cars at the offsets packed in the key
+     *
+     * @param key packed offsets
+     * @return the config
+     */
+    @Override
+    public Config fromKey(long key) {
+        return new JamConfig(board, key);
+    }
+
+    /**
+     * Returns 0 if X is out, and otherwise one move for X plus one for each car covering a square between X and
+     * the last column, since each of those has to move at least once. If X can never get there, because it drives
+     * up and down in another column or a car that can't leave its row is in the way, the goal is unreachable.
+     *
+     * @return estimate of the moves left
+     */
+    @Override
+    public int estimate() {
+        if (isSolution()) {
+            return 0;
+        }
+        int goal = board.getGoalCar();
+        if (!board.isHorizontal(goal)) {
+            return UNREACHABLE;
+        }
+        long path = board.exitPath(board.offset(offsets, goal));
+        int estimate = 1;
+        for (int car = 0; car < board.getCars(); car++) {
+            if (car != goal && (board.mask(car, board.offset(offsets, car)) & path) != 0) {
+                if (board.isHorizontal(car)) {
+                    return UNREACHABLE;
+                }
+                estimate++;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Checks whether car X covers a square of the last column
+     *
+     * @return true if is goal, else false
+     */
+    @Override
+    public boolean isSolution() {
+        int goal = board.getGoalCar();
+        if (board.isHorizontal(goal)) {
+            return board.offset(offsets, goal) == board.getMaxOffset(goal);
+        }
+        return board.getLine(goal) == board.getColumns() - 1;
+    }
+
+    /**
+     * Returns the index of the car covering a square
+     *
+     * @param row row of the square
+     * @param column column of the square
+     * @return index of the car, or -1 if the square is empty or off the board
+     */
+    private int carAt(int row, int column) {
+        if (row < 0 || column < 0 || row >= board.getRows() || column >= board.getColumns()) {
+            return -1;
+        }
+        long bit = board.bit(row, column);
+        if ((occupied & bit) == 0) {
+            return -1;
+        }
+        for (int car = 0; car < board.getCars(); car++) {
+            if ((board.mask(car, board.offset(offsets, car)) & bit) != 0) {
+                return car;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the letter of the car at the given row and column
+     *
+     * @param row row of the square
+     * @param column column of the square
+     * @return letter of the car, or . if the square is empty
+     */
+    public char get(int row, int column) {
+        int car = carAt(row, column);
+        return car < 0 ? ".".charAt(0) : board.getLetter(car);
+    }
+
+    /**
+     * Checks whether the car at the given row and column slides along its row
+     *
+     * @param row row of the square
+     * @param column column of the square
+     * @return true if there is a horizontal car there, else false
+     */
+    public boolean isHorizontal(int row, int column) {
+        int car = carAt(row, column);
+        return car >= 0 && board.isHorizontal(car);
+    }
+
+    /**
+     * Returns the Zobrist hash worked out when the config was created, folded into an int
+     *
+     * @return appropriate int
+     */
+    @Override
+    public int hashCode() {
+        return (int) (zobrist ^ (zobrist >>> 32));
+    }
+
+    /**
+     * Checks whether the current configuration is the same as another configuration
+     *
+     * @param obj the other configuration
+     * @return true if same config, else false
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof JamConfig) {
+            JamConfig other = (JamConfig) obj;
+            return zobrist == other.zobrist && board == other.board && offsets == other.offsets;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a string representing the grid of cars of the Jam puzzle
+     *
+     * @return string
+     */
+    @Override
+    public Object necessary() {
+        return PathWriter.toString(this);
+    }
+
+    /**
+     * Writes the grid of cars of the Jam puzzle, with the column numbers above it and the row numbers beside it.
+     * The letters are first laid out in a grid from the bitboard of each car.
+     *
+     * @param out where the grid is written
+     * @throws IOException if it can't be written
+     */
+    @Override
+    public void render(Appendable out) throws IOException {
+        char[] grid = new char[board.getRows() * board.getColumns()];
+        Arrays.fill(grid, ".".charAt(0));
+        for (int car = 0; car < board.getCars(); car++) {
+            long mask = board.mask(car, board.offset(offsets, car));
+            while (mask != 0) {
+                grid[Long.numberOfTrailingZeros(mask)] = board.getLetter(car);
+                mask &= mask - 1;
+            }
+        }
+        out.append("\n  ");
+        for (int f = 0; f < board.getColumns(); f++) {
+            out.append(" ").append(Integer.toString(f));
+        }
+        out.append("\n  ").append("-".repeat(board.getColumns() * 2)).append("\n");
+        for (int i = 0; i < board.getRows(); i++) {
+            out.append(Integer.toString(i)).append("|");
+            for (int e = 0; e < board.getColumns(); e++) {
+                out.append(" ").append(grid[i * board.getColumns() + e]);
+            }
+            out.append("\n");
+        }
+    }
+
+    /**
+     * Describes the layout of the board without the positions of the cars, as the number of rows and columns
+     * followed by the letter, direction, length and row or column of each car
+     *
+     * @return layout of the board
+     */
+    public String getLayout() {
+        StringBuilder layout = new StringBuilder();
+        layout.append(board.getRows()).append("/").append(board.getColumns()).append("/");
+        for (int car = 0; car < board.getCars(); car++) {
+            layout.append(board.getLetter(car)).append(board.isHorizontal(car) ? "h" : "v")
+                    .append(board.getLength(car)).append("@").append(board.getLine(car)).append(";");
+        }
+        return layout.toString();
+    }
+
+    /**
+     * Returns number of rows on the board
+     *
+     * @return number of rows
+     */
+    public int getRows() {
+        return board.getRows();
+    }
+
+    /**
+     * Returns number of columns on the board
+     *
+     * @return number of columns
+     */
+    public int getColumns() {
+        return board.getColumns();
+    }
 }
@@ -0,0 +1,175 @@
+package puzzles.jam.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reads Jam files. The first line holds the number of rows and columns, the second the number of cars, and each
+ * car follows on its own line as its letter and the row and column of its two ends, such as X 2 0 2 1. Car X is
+ * the one that has to reach the last column. Blank lines are skipped. The whole board has to fit in the bits of a
+ * long, so boards of more than 64 squares, or with more cars than their offsets can be packed for, aren't
+ * accepted.
+ *
+ * Jose Estevez
+ */
+public class JamLoader {
+    private final Path file;
+    private final List<String> lines;
+    private int line;
+
+    /**
+     * Constructs a loader for the lines of a file
+     *
+     * @param file the file, used in error messages
+     * @param lines lines of the file
+     */
+    private JamLoader(Path file, List<String> lines) {
+        this.file = file;
+        this.lines = lines;
+    }
+
+    /**
+     * Reads a Jam file into the config it describes
+     *
+     * @param file the file
+     * @return config of the puzzle in the file
+     * @throws IOException if the file can't be read, or isn't a valid Jam file, in which case the message gives
+     * the line of the problem
+     */
+    public static JamConfig load(Path file) throws IOException {
+        return new JamLoader(file, Files.readAllLines(file)).parse();
+    }
+
+    /**
+     * Parses the size of the board, the number of cars and then each car
+     *
+     * @return the config
+     * @throws IOException if the contents aren't a valid Jam file
+     */
+    private JamConfig parse() throws IOException {
+        String[] size = nextLine(2, "the number of rows and columns");
+        int rows = readNumber(size[0], "number of rows", 1);
+        int columns = readNumber(size[1], "number of columns", 1);
+        if ((long) rows * columns > 64) {
+            throw error("board of " + rows + " by " + columns + " has more than 64 squares");
+        }
+        int cars = readNumber(nextLine(1, "the number of cars")[0], "number of cars", 1);
+        if ((long) cars * JamBoard.bitsPerCar(rows, columns) > 64) {
+            throw error(cars + " cars don't fit on a board of " + rows + " by " + columns);
+        }
+        char[] letters = new char[cars];
+        boolean[] horizontal = new boolean[cars];
+        int[] lengths = new int[cars];
+        int[] lineOf = new int[cars];
+        int[] starts = new int[cars];
+        int goalCar = -1;
+        long occupied = 0;
+        for (int car = 0; car < cars; car++) {
+            String[] words = nextLine(5, "a car as its letter and the row and column of both ends");
+            if (words[0].length() != 1) {
+                throw error("expected the letter of a car, found " + words[0]);
+            }
+            letters[car] = words[0].charAt(0);
+            for (int other = 0; other < car; other++) {
+                if (letters[other] == letters[car]) {
+                    throw error("there is already a car " + letters[car]);
+                }
+            }
+            int row1 = readNumber(words[1], "row", 0);
+            int column1 = readNumber(words[2], "column", 0);
+            int row2 = readNumber(words[3], "row", 0);
+            int column2 = readNumber(words[4], "column", 0);
+            if (Math.max(row1, row2) >= rows || Math.max(column1, column2) >= columns) {
+                throw error("car " + letters[car] + " is off the board");
+            }
+            if (row1 != row2 && column1 != column2) {
+                throw error("car " + letters[car] + " isn't in a straight line");
+            }
+            horizontal[car] = row1 == row2;
+            lengths[car] = horizontal[car] ? Math.abs(column2 - column1) + 1 : Math.abs(row2 - row1) + 1;
+            lineOf[car] = horizontal[car] ? row1 : column1;
+            starts[car] = horizontal[car] ? Math.min(column1, column2) : Math.min(row1, row2);
+            for (int i = 0; i < lengths[car]; i++) {
+                int square = horizontal[car] ? row1 * columns + starts[car] + i : (starts[car] + i) * columns + column1;
+                if ((occupied & (1L << square)) != 0) {
+                    throw error("car " + letters[car] + " runs into another car");
+                }
+                occupied |= 1L << square;
+            }
+            if (letters[car] == "X".charAt(0)) {
+                goalCar = car;
+            }
+        }
+        if (nextLine(0, null) != null) {
+            throw error("expected the end of the file after " + cars + " cars");
+        }
+        if (goalCar < 0) {
+            throw error("there is no car X");
+        }
+        JamBoard board = new JamBoard(rows, columns, letters, horizontal, lengths, lineOf, goalCar);
+        long offsets = 0;
+        for (int car = 0; car < cars; car++) {
+            offsets = board.withOffset(offsets, car, starts[car]);
+        }
+        return new JamConfig(board, offsets);
+    }
+
+    /**
+     * Moves to the next line that isn't blank and splits it into words
+     *
+     * @param words number of words the line must have
+     * @param what what the line should hold, for the error message
+     * @return words of the line, or null at the end of the file if what is null
+     * @throws IOException if the file ends, or the line has the wrong number of words
+     */
+    private String[] nextLine(int words, String what) throws IOException {
+        while (line < lines.size() && lines.get(line).isBlank()) {
+            line++;
+        }
+        if (line == lines.size()) {
+            if (what == null) {
+                return null;
+            }
+            throw error("expected " + what + ", found the end of the file");
+        }
+        String[] split = lines.get(line++).trim().split("\\s+");
+        if (what != null && split.length != words) {
+            throw error("expected " + what + ", found " + split.length + " values");
+        }
+        return split;
+    }
+
+    /**
+     * Reads a whole number that is at least a minimum
+     *
+     * @param word the word holding the number
+     * @param what what the number is, for the error message
+     * @param least smallest value allowed
+     * @return the number
+     * @throws IOException if the word isn't a number of at least the minimum
+     */
+    private int readNumber(String word, String what, int least) throws IOException {
+        try {
+            int number = Integer.parseInt(word);
+            if (number >= least) {
+                return number;
+            }
+        }
+        catch (NumberFormatException e) {
+            // reported below
+        }
+        throw error("expected the " + what + " as a number of at least " + least + ", found " + word);
+    }
+
+    /**
+     * Creates the exception for a problem on the line last read
+     *
+     * @param message what is wrong
+     * @return exception whose message gives the file and line
+     */
+    private IOException error(String message) {
+        return new IOException(file + ":" + Math.max(line, 1) + ": " + message);
+    }
+}
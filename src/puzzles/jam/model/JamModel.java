@@ -1,17 +1,49 @@
 package puzzles.jam.model;
 
 import puzzles.common.Observer;
+import puzzles.common.solver.Config;
 import puzzles.common.solver.Solver;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
+/**
+ * Creates and controls the model for the Jam puzzle. Each solve for a hint remembers the next step of every config
+ * on its path, so following the hints to the end of the puzzle only solves it once.
+ *
+ * Jose Estevez
+ */
 public class JamModel {
+    /** directory puzzle files are looked for in when they aren't found as given */
+    private static final String DATA_DIR = "data/jam";
+
     /** the collection of observers of this model */
     private final List<Observer<JamModel, JamClientData>> observers = new LinkedList<>();
 
+    /** next step of each config on a path solved for a hint, or null for a config with no solution */
+    private final HashMap<JamConfig, JamConfig> hints = new HashMap<>();
+
     /** the current configuration */
     private JamConfig currentConfig;
+    private int row = Integer.MIN_VALUE;
+    private int column = Integer.MIN_VALUE;
+    private JamConfig origConfig;
+
+    /**
+     * Constructs JamModel
+     *
+     * @param config starting config of the puzzle, such as one read by JamLoader
+     */
+    public JamModel(JamConfig config) {
+        origConfig = config;
+        currentConfig = config;
+    }
 
     /**
      * The view calls this to add itself as an observer.
@@ -31,4 +63,112 @@ public class JamModel {
             observer.update(this, data);
         }
     }
+
+    /**
+     * Does the next step of the puzzle if the puzzle has a solution, solving it from the current config unless
+     * the config was on the path of an earlier hint
+     */
+    public synchronized void hint() {
+        if (currentConfig.isSolution()) {
+            alertObservers(new JamClientData("Already solved!"));
+            return;
+        }
+        if (!hints.containsKey(currentConfig)) {
+            ArrayList<Config> path = new Solver(currentConfig).solve();
+            if (path == null) {
+                hints.put(currentConfig, null);
+            }
+            else {
+                for (int i = 0; i < path.size() - 1; i++) {
+                    hints.put((JamConfig) path.get(i), (JamConfig) path.get(i + 1));
+                }
+            }
+        }
+        JamConfig next = hints.get(currentConfig);
+        if (next == null) {
+            alertObservers(new JamClientData("There is no solution, reset the game"));
+        }
+        else {
+            currentConfig = next;
+            alertObservers(new JamClientData("Next step!"));
+        }
+    }
+
+    /**
+     * Loads a jam puzzle specified by the user. A file name that isn't found as given is looked for in the
+     * data/jam directory.
+     *
+     * @param fileName filename specified by user
+     */
+    public synchronized void load(String fileName) {
+        Path file = Paths.get(fileName);
+        if (!Files.exists(file) && Files.exists(Paths.get(DATA_DIR, fileName))) {
+            file = Paths.get(DATA_DIR, fileName);
+        }
+        try {
+            origConfig = JamLoader.load(file);
+            currentConfig = origConfig;
+            hints.clear();
+            this.row = Integer.MIN_VALUE;
+            this.column = Integer.MIN_VALUE;
+            alertObservers(new JamClientData("Loaded: " + fileName));
+        }
+        catch (IOException e) {
+            alertObservers(new JamClientData("Failed to load: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Resets the current puzzle to its initial state
+     */
+    public synchronized void reset() {
+        currentConfig = origConfig;
+        this.row = Integer.MIN_VALUE;
+        this.column = Integer.MIN_VALUE;
+        alertObservers(new JamClientData("Puzzle reset!"));
+    }
+
+    /**
+     * Selects a car if the coordinates are on one, and moves the car so that it covers the coordinates if a car
+     * has been selected already and nothing is in the way.
+     *
+     * @param row row coordinate
+     * @param column column coordinate
+     */
+    public synchronized void select(int row, int column) {
+        if (row < 0 || column < 0 || row > currentConfig.getRows()-1 || column > currentConfig.getColumns()-1) {
+            alertObservers(new JamClientData("Out of bounds, choose a different row and/or column"));
+        }
+        else if (this.row == Integer.MIN_VALUE) {
+            if (currentConfig.get(row, column) != ".".charAt(0)) {
+                this.row = row;
+                this.column = column;
+                alertObservers(new JamClientData("Selected(" + row + ", " + column + ")"));
+            }
+            else {
+                alertObservers(new JamClientData("No car at (" + row + ", " + column + ")"));
+            }
+        }
+        else {
+            JamConfig jamConfig = currentConfig.move(this.row, this.column, row, column);
+            if (jamConfig != null) {
+                currentConfig = jamConfig;
+                alertObservers(new JamClientData("Moved from (" + this.row + ", " + this.column + ") to (" + row + ", " + column + ")"));
+            }
+            else {
+                alertObservers(new JamClientData("Can't move from (" + this.row + ", " + this.column + ") to (" + row + ", " + column + ")"));
+            }
+            this.row = Integer.MIN_VALUE;
+            this.column = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * returns current jam config
+     *
+     * @return current jam config
+     */
+    public synchronized JamConfig getCurrentConfig() {
+        return currentConfig;
+    }
 }
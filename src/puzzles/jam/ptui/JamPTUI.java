@@ -2,18 +2,121 @@ package puzzles.jam.ptui;
 
 import puzzles.common.Observer;
 import puzzles.jam.model.JamClientData;
+import puzzles.jam.model.JamConfig;
+import puzzles.jam.model.JamLoader;
 import puzzles.jam.model.JamModel;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Scanner;
+
+/**
+ * This class creates and controls the text-based UI for the Jam puzzle
+ *
+ * Jose Estevez
+ */
 public class JamPTUI implements Observer<JamModel, JamClientData> {
     private JamModel model;
 
+    /**
+     * Constructs ptui and model
+     *
+     * @param config starting config read from the Jam file
+     */
+    public JamPTUI(JamConfig config) {
+        model = new JamModel(config);
+        initializeView();
+    }
+
+    /**
+     * Adds this ptui as observer of JamModel
+     */
+    public void initializeView() {
+        model.addObserver(this);
+        update(model, null);
+    }
+
+    /**
+     * Repeatedly asks user for input, uses input to execute commands for Jam puzzle
+     */
+    private void run() {
+        Scanner in = new Scanner(System.in);
+        displayHelp();
+        for ( ; ; ) {
+            System.out.println("Game command: ");
+            String line = in.nextLine();
+            String[] words = line.split("\\s+");
+            if (words.length > 0) {
+                if (words[0].startsWith("h")) {
+                    model.hint();
+                }
+                else if (words[0].startsWith("l") && words.length == 2) {
+                    model.load(words[1]);
+                }
+                else if (words[0].startsWith("s") && words.length == 3) {
+                    try {
+                        model.select(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+                    }
+                    catch (NumberFormatException e) {
+                        displayHelp();
+                    }
+                }
+                else if (words[0].startsWith("q")) {
+                    break;
+                }
+                else if (words[0].startsWith("r")) {
+                    model.reset();
+                }
+                else {
+                    displayHelp();
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates JamPTUI based off JamModel whenever an action is taken
+     *
+     * @param model JamModel
+     * @param data optional data the server.model can send to the observer
+     */
     @Override
-    public void update(JamModel jamModel, JamClientData jamClientData) {
+    public void update(JamModel model, JamClientData data) {
+        if (data != null) {
+            System.out.println(data.getMessage());
+        }
+        System.out.println(model.getCurrentConfig().necessary());
+    }
+
+    /**
+     * Prints command options for user
+     */
+    public void displayHelp() {
+        System.out.println("h(int)                     -- hint next move");
+        System.out.println("l(oad) filename            -- load new puzzle file");
+        System.out.println("s(elect) r c               -- select a car at r, c, then where to move it");
+        System.out.println("q(uit)                     -- quit the game");
+        System.out.println("r(eset)                    -- reset the current game");
     }
 
+    /**
+     * Reads a file and passes contents of file to ptui constructor, then runs ptui
+     *
+     * @param args file name
+     */
     public static void main(String[] args) {
         if (args.length != 1) {
             System.out.println("Usage: java JamPTUI filename");
+            return;
+        }
+        try {
+            JamConfig config = JamLoader.load(Paths.get(args[0]));
+            System.out.println("Loaded: " + args[0]);
+            JamPTUI ptui = new JamPTUI(config);
+            ptui.run();
+        }
+        catch (IOException e) {
+            System.out.println("Failed to load: " + e.getMessage());
         }
     }
 }
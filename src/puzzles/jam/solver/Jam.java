@@ -1,11 +1,43 @@
 package puzzles.jam.solver;
 
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.PathWriter;
+import puzzles.common.solver.Solution;
+import puzzles.common.solver.SolutionStore;
+import puzzles.jam.model.JamConfig;
+import puzzles.jam.model.JamLoader;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * This class represents the Jam puzzle. Reads a file and uses it to create a Jam config and passes it to a solver,
+ * then uses the solver to find the solution path for the config. Prints results of search. If a SolutionStore is
+ * set up, a board solved before is read from it instead.
+ *
+ * Jose Estevez
+ */
 public class Jam {
     public static void main(String[] args) {
         if (args.length != 1) {
             System.out.println("Usage: java Jam filename");
+            return;
+        }
+        JamConfig jam;
+        try {
+            jam = JamLoader.load(Paths.get(args[0]));
+        }
+        catch (IOException e) {
+            System.out.println("Failed to load: " + e.getMessage());
+            return;
+        }
+        Solution solution = SolutionStore.solve("jam " + jam.getLayout(), jam);
+        System.out.println("Total configs: " + solution.getTotalConfigs());
+        System.out.println("Unique configs: " + solution.getUniqueConfigs());
+        if (solution.getPath() == null) {
+            System.out.println("No solution.");
+        }
+        else {
+            PathWriter.print(solution.getPath());
         }
     }
-}
\ No newline at end of file
+}
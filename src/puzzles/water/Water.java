@@ -1,16 +1,18 @@
 package puzzles.water;
 
-import puzzles.common.solver.Solver;
-
 import puzzles.common.solver.Config;
+import puzzles.common.solver.PathWriter;
 import puzzles.common.solver.WaterConfig;
+import puzzles.common.solver.WaterSolver;
 
 import java.util.ArrayList;
 
 /**
- * This class represents the Water puzzle. It creates a WaterConfig and a solver, and passes the config to
+ * This class represents the Water puzzle. It creates a WaterConfig and a WaterSolver, and passes the config to
  * the solver to try and find a path. It prints out the results of the attempted search regardless of the
- * outcome.
+ * outcome. Puzzles the WaterSolver can't answer with number theory are searched, and if a SolutionStore is set
+ * up, a puzzle searched before is read from it instead. The config counts are only printed for a search, since
+ * otherwise the only configs are the ones on the path.
  *
  * @author Jose Estevez
  */
@@ -28,19 +30,20 @@ public class Water {
         }
         System.out.println("]");
         WaterConfig waterConfig = new WaterConfig(args);
-        Solver s = new Solver(waterConfig);
-        ArrayList<Config> path = s.solve();
-        System.out.println("Total configs: " + s.getTotalConfigs());
-        System.out.println("Unique configs: " + s.getUniqueConfigs());
+        WaterSolver solver = new WaterSolver(waterConfig);
+        ArrayList<Config> path = solver.solve();
+        if (solver.isSearched()) {
+            System.out.println("Total configs: " + solver.getTotalConfigs());
+            System.out.println("Unique configs: " + solver.getUniqueConfigs());
+        }
+        else {
+            System.out.println("Answered without a search.");
+        }
         if (path == null) {
             System.out.println("No solution.");
         }
         else {
-            int step = 0;
-            for (Config config: path) {
-                System.out.println("Step " + step + ": " + config.necessary());
-                step++;
-            }
+            PathWriter.print(path);
         }
     }
 }